@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Writes the source of the adapter for a single @ConfigSerializable class.
+ * Mirrors the reflective binding in AdapterHandler: transient fields are skipped,
+ * keys go through the handler's naming strategy and values through adaptIn/adaptOut.
+ */
+final class AdapterWriter {
+    private static final String SUFFIX = "ConfigAdapter";
+    private static final String REQUIRED_FIELD = "xyz.mkotb.configapi.RequiredField";
+    private static final String COLOURED = "xyz.mkotb.configapi.Coloured";
+    private static final String LAZY = "xyz.mkotb.configapi.Lazy";
+    private static final String SELF = "xyz.mkotb.configapi.comment.Self";
+    private static final String CONFIGURATION_SECTION = "org.bukkit.configuration.ConfigurationSection";
+    private final ProcessingEnvironment env;
+    private final Types types;
+    private final Elements elements;
+    private final TypeElement type;
+    private final List<VariableElement> fields = new ArrayList<>();
+    private VariableElement selfField;
+
+    AdapterWriter(ProcessingEnvironment env, TypeElement type) {
+        this.env = env;
+        this.types = env.getTypeUtils();
+        this.elements = env.getElementUtils();
+        this.type = type;
+    }
+
+    String packageName() {
+        return elements.getPackageOf(type).getQualifiedName().toString();
+    }
+
+    String simpleName() {
+        String binaryName = elements.getBinaryName(type).toString();
+        String packageName = packageName();
+        String name = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return name.replace('$', '_') + SUFFIX;
+    }
+
+    String qualifiedName() {
+        String packageName = packageName();
+        return packageName.isEmpty() ? simpleName() : packageName + "." + simpleName();
+    }
+
+    boolean validate() {
+        boolean valid = true;
+
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            valid = error(type, "@ConfigSerializable classes cannot be abstract");
+        }
+
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                valid = error(type, "@ConfigSerializable classes cannot be private or nested in private classes");
+            }
+
+            if (enclosing.getEnclosingElement() instanceof TypeElement &&
+                    !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                valid = error(type, "@ConfigSerializable classes cannot be inner (non-static) classes");
+            }
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean noArgs = constructors.stream().anyMatch((c) -> c.getParameters().isEmpty() &&
+                !c.getModifiers().contains(Modifier.PRIVATE));
+
+        if (!noArgs) {
+            valid = error(type, "@ConfigSerializable classes need a non-private no-args constructor");
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+
+            if (modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                valid = error(field, "Fields of @ConfigSerializable classes cannot be private, make it " +
+                        "package-private or transient");
+                continue;
+            }
+
+            if (modifiers.contains(Modifier.FINAL) && !modifiers.contains(Modifier.STATIC)) {
+                valid = error(field, "Fields of @ConfigSerializable classes cannot be final");
+                continue;
+            }
+
+            if (annotation(field, SELF) != null) {
+                TypeElement section = elements.getTypeElement(CONFIGURATION_SECTION);
+
+                if (section != null && !types.isAssignable(field.asType(), section.asType())) {
+                    valid = error(field, "Field " + field.getSimpleName() + " with @Self annotation is not a " +
+                            "configuration section, is " + field.asType());
+                    continue;
+                }
+
+                selfField = field;
+                continue;
+            }
+
+            fields.add(field);
+        }
+
+        return valid;
+    }
+
+    String write() {
+        String typeName = types.erasure(type.asType()).toString();
+        StringBuilder sb = new StringBuilder();
+
+        if (!packageName().isEmpty()) {
+            sb.append("package ").append(packageName()).append(";\n\n");
+        }
+
+        sb.append("import org.bukkit.ChatColor;\n")
+                .append("import org.bukkit.configuration.ConfigurationSection;\n")
+                .append("import org.bukkit.configuration.MemorySection;\n")
+                .append("import xyz.mkotb.configapi.ex.InvalidConfigurationException;\n")
+                .append("import xyz.mkotb.configapi.internal.InternalsHelper;\n")
+                .append("import xyz.mkotb.configapi.internal.SerializableMemorySection;\n")
+                .append("import xyz.mkotb.configapi.internal.adapt.AdapterHandler;\n")
+                .append("import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;\n")
+                .append("import xyz.mkotb.configapi.internal.naming.NamingStrategy;\n\n")
+                .append("import java.util.Map;\n\n")
+                .append("// generated by config-api-processor, do not edit\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName()).append(" implements ObjectAdapter<")
+                .append(typeName).append(", ConfigurationSection> {\n")
+                .append("    private final AdapterHandler handler;\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append("    private final String key").append(i).append(";\n");
+            sb.append("    private final Class<?> out").append(i).append(";\n");
+            sb.append("    private final String root").append(i).append(";\n");
+        }
+
+        sb.append("\n    public ").append(simpleName()).append("(AdapterHandler handler) {\n")
+                .append("        NamingStrategy strategy = handler.namingStrategy();\n")
+                .append("        this.handler = handler;\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            sb.append("        this.key").append(i).append(" = strategy.rename(\"")
+                    .append(field.getSimpleName()).append("\");\n");
+            sb.append("        this.out").append(i).append(" = AdapterHandler.fieldOutClass(")
+                    .append(types.erasure(field.asType())).append(".class);\n");
+            sb.append("        this.root").append(i).append(" = key").append(i).append(".indexOf('.') < 0 ? null : key")
+                    .append(i).append(".substring(0, key").append(i).append(".indexOf('.'));\n");
+        }
+
+        sb.append("    }\n\n")
+                .append("    private static String missing(String name, String key) {\n")
+                .append("        String message = \"Could not find the required field, \" + name;\n\n")
+                .append("        if (key != null) {\n")
+                .append("            message += \", in section \" + key;\n")
+                .append("        }\n\n")
+                .append("        return message;\n")
+                .append("    }\n\n");
+
+        writeRead(sb, typeName);
+        writeWrite(sb, typeName);
+
+        return sb.append("}\n").toString();
+    }
+
+    /*
+     * Like AdapterHandler's key sweep, reads each present key once, reports keys
+     * no field is bound to, and follows path keys such as "a.b" which the sweep
+     * did not match
+     */
+    private void writeRead(StringBuilder sb, String typeName) {
+        sb.append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(String key, ConfigurationSection section) {\n")
+                .append("        ConfigurationSection reading = (key == null) ? section : section.getConfigurationSection(key);\n")
+                .append("        ").append(typeName).append(" instance = new ").append(typeName).append("();\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append("        boolean found").append(i).append(" = false;\n");
+        }
+
+        sb.append("\n        for (Map.Entry<String, Object> entry : reading.getValues(false).entrySet()) {\n")
+                .append("            String name = entry.getKey();\n")
+                .append("            Object raw = entry.getValue();\n")
+                .append("            boolean known = false;\n\n")
+                .append("            if (raw == null) {\n")
+                .append("                continue;\n")
+                .append("            }\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append("\n            if (name.equals(key").append(i).append(")) {\n");
+            writeAssignment(sb, fields.get(i), i, "                ");
+            sb.append("                found").append(i).append(" = known = true;\n")
+                    .append("            }\n");
+        }
+
+        if (selfField == null) {
+            sb.append("\n            if (!known");
+
+            for (int i = 0; i < fields.size(); i++) {
+                sb.append(" && !name.equals(root").append(i).append(")");
+            }
+
+            sb.append(") {\n")
+                    .append("                handler.reportUnknownKey(").append(typeName)
+                    .append(".class, reading.getCurrentPath(), name);\n")
+                    .append("            }\n");
+        }
+
+        sb.append("        }\n\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+
+            sb.append("        if (!found").append(i).append(" && root").append(i).append(" != null && reading.get(key")
+                    .append(i).append(") != null) {\n")
+                    .append("            Object raw = reading.get(key").append(i).append(");\n");
+            writeAssignment(sb, field, i, "            ");
+            sb.append("            found").append(i).append(" = true;\n")
+                    .append("        }\n\n");
+
+            if (annotation(field, REQUIRED_FIELD) != null) {
+                sb.append("        if (!found").append(i).append(") {\n")
+                        .append("            throw new InvalidConfigurationException(missing(key").append(i)
+                        .append(", key));\n")
+                        .append("        }\n\n");
+            }
+        }
+
+        if (selfField != null) {
+            sb.append("        ").append(target(selfField)).append(" = reading;\n");
+        }
+
+        sb.append("        return instance;\n")
+                .append("    }\n\n");
+    }
+
+    private void writeAssignment(StringBuilder sb, VariableElement field, int i, String indent) {
+        if (isConstant(field)) {
+            return; // constants can't be assigned, only required
+        }
+
+        sb.append(indent).append(target(field)).append(isLazy(field) ? " = handler.readLazy(raw, " :
+                " = handler.adaptValueIn(raw, ").append(inClass(field)).append(".class, ")
+                .append(typeArguments(field)).append(");\n");
+    }
+
+    private void writeWrite(StringBuilder sb, String typeName) {
+        sb.append("    @Override\n")
+                .append("    public ConfigurationSection write(").append(typeName).append(" obj) {\n")
+                .append("        MemorySection section = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);\n\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            String source = source(field);
+            AnnotationMirror coloured = annotation(field, COLOURED);
+
+            if (field.asType().getKind().isPrimitive()) {
+                sb.append("        section.set(key").append(i).append(", ").append(source).append(");\n\n");
+                continue;
+            }
+
+            sb.append("        if (").append(source).append(" != null) {\n")
+                    .append("            Object value = handler.adaptOut(").append(source).append(", out").append(i)
+                    .append(", ").append(typeArguments(field)).append(");\n");
+
+            if (coloured != null) {
+                sb.append("\n            if (value instanceof String) {\n")
+                        .append("                value = AdapterHandler.translateAlternateColorCodes(")
+                        .append(charLiteral(coloured)).append(", ChatColor.COLOR_CHAR, (String) value);\n")
+                        .append("            }\n\n");
+            }
+
+            sb.append("            section.set(key").append(i).append(", value);\n")
+                    .append("        }\n\n");
+        }
+
+        if (selfField != null) {
+            sb.append("        ConfigurationSection selfSec = ").append(source(selfField)).append(";\n\n")
+                    .append("        if (selfSec != null) {\n")
+                    .append("            selfSec.getValues(false).forEach((k, v) -> {\n")
+                    .append("                if (!section.contains(k)) {\n")
+                    .append("                    section.set(k, v);\n")
+                    .append("                }\n")
+                    .append("            });\n")
+                    .append("        }\n\n");
+        }
+
+        sb.append("        return section;\n")
+                .append("    }\n");
+    }
+
+    private String target(VariableElement field) {
+        if (field.getModifiers().contains(Modifier.STATIC)) {
+            return types.erasure(type.asType()) + "." + field.getSimpleName();
+        }
+
+        return "instance." + field.getSimpleName();
+    }
+
+    private String source(VariableElement field) {
+        if (field.getModifiers().contains(Modifier.STATIC)) {
+            return types.erasure(type.asType()) + "." + field.getSimpleName();
+        }
+
+        return "obj." + field.getSimpleName();
+    }
+
+    /*
+     * Mirrors ClassBindingPlan: @Lazy only applies to fields declared as List, Collection or Map
+     */
+    private boolean isLazy(VariableElement field) {
+        if (annotation(field, LAZY) == null) {
+            return false;
+        }
+
+        String erasure = types.erasure(field.asType()).toString();
+        return erasure.equals("java.util.List") || erasure.equals("java.util.Collection") ||
+                erasure.equals("java.util.Map");
+    }
+
+    private boolean isConstant(VariableElement field) {
+        return field.getModifiers().contains(Modifier.FINAL);
+    }
+
+    private String inClass(VariableElement field) {
+        TypeMirror fieldType = field.asType();
+
+        if (fieldType.getKind().isPrimitive()) {
+            return types.boxedClass((PrimitiveType) fieldType).getQualifiedName().toString();
+        }
+
+        return types.erasure(fieldType).toString();
+    }
+
+    /*
+     * The type argument, followed by the element argument when there is one
+     */
+    private String typeArguments(VariableElement field) {
+        TypeMirror argument = typeArgument(field.asType());
+
+        if (argument == null) {
+            return "null";
+        }
+
+        boolean parameterized = argument.getKind() == TypeKind.DECLARED &&
+                !((DeclaredType) argument).getTypeArguments().isEmpty();
+        TypeMirror elementArgument = parameterized ? typeArgument(argument) : null;
+        return elementArgument == null ? classLiteral(argument) :
+                classLiteral(argument) + ", " + classLiteral(elementArgument);
+    }
+
+    /*
+     * The generic argument AdapterHandler needs: the element type of collections
+     * and the value type of maps, as InternalsHelper.typeOf resolves it at runtime
+     * and InternalsHelper.argumentOf does for the argument's own. Null for other types.
+     */
+    private TypeMirror typeArgument(TypeMirror type) {
+        int index;
+
+        if (isSubtype(type, "java.util.Map")) {
+            index = 1;
+        } else if (isSubtype(type, "java.util.Collection")) {
+            index = 0;
+        } else {
+            return null;
+        }
+
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return arguments.size() <= index ? elements.getTypeElement("java.lang.Object").asType() : arguments.get(index);
+    }
+
+    private String classLiteral(TypeMirror argument) {
+        if (argument.getKind() == TypeKind.WILDCARD || argument.getKind() == TypeKind.TYPEVAR) {
+            return "Object.class";
+        }
+
+        return types.erasure(argument) + ".class";
+    }
+
+    private boolean isSubtype(TypeMirror fieldType, String className) {
+        TypeElement element = elements.getTypeElement(className);
+        return fieldType.getKind() == TypeKind.DECLARED &&
+                types.isAssignable(types.erasure(fieldType), types.erasure(element.asType()));
+    }
+
+    private String charLiteral(AnnotationMirror coloured) {
+        char value = '&';
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                elements.getElementValuesWithDefaults(coloured).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                value = (Character) entry.getValue().getValue();
+            }
+        }
+
+        return String.format("'\\u%04x'", (int) value);
+    }
+
+    private AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean error(Element element, String message) {
+        env.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+}
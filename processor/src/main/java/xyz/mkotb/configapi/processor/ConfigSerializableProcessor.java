@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/*
+ * Generates an ObjectAdapter for every class annotated with @ConfigSerializable.
+ * AdapterHandler picks these up by name and prefers them over its reflective path.
+ */
+@SupportedAnnotationTypes(ConfigSerializableProcessor.ANNOTATION)
+public class ConfigSerializableProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "xyz.mkotb.configapi.ConfigSerializable";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "@ConfigSerializable can only be applied to classes", element);
+                    continue;
+                }
+
+                generate((TypeElement) element);
+            }
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        AdapterWriter writer = new AdapterWriter(processingEnv, type);
+
+        if (!writer.validate()) {
+            return;
+        }
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.qualifiedName(), type);
+
+            try (Writer out = file.openWriter()) {
+                out.write(writer.write());
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write adapter for " + type.getQualifiedName() + ": " + ex.getMessage(), type);
+        }
+    }
+}
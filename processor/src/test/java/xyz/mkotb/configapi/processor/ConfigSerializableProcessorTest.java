@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.processor;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.MemorySection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+import xyz.mkotb.configapi.internal.naming.CamelCaseNamingStrategy;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Compiles a sample class with and without the processor, and checks the
+ * generated adapter reads and writes it as the reflective path does
+ */
+public class ConfigSerializableProcessorTest {
+    private static final String SAMPLE = "package sample;\n\n" +
+            "import xyz.mkotb.configapi.ConfigSerializable;\n" +
+            "import xyz.mkotb.configapi.Lazy;\n" +
+            "import xyz.mkotb.configapi.RequiredField;\n\n" +
+            "import java.util.*;\n\n" +
+            "@ConfigSerializable\n" +
+            "public class Sample {\n" +
+            "    @RequiredField\n" +
+            "    String startMessage = \"hello\";\n" +
+            "    int count = 3;\n" +
+            "    List<Integer> numbers = new ArrayList<>(Arrays.asList(1, 2));\n" +
+            "    Map<String, Inner> inners = new LinkedHashMap<>(Collections.singletonMap(\"a\", new Inner()));\n" +
+            "    Inner inner = new Inner();\n" +
+            "    @Lazy\n" +
+            "    List<List<Integer>> rows = new ArrayList<>(Collections.singletonList(Arrays.asList(1, 2)));\n" +
+            "    Map<String, Set<Inner>> groups = new LinkedHashMap<>(Collections.singletonMap(\"b\",\n" +
+            "            new HashSet<>(Collections.singleton(new Inner()))));\n" +
+            "    transient int skipped = 4;\n\n" +
+            "    @ConfigSerializable\n" +
+            "    public static class Inner {\n" +
+            "        String value = \"x\";\n" +
+            "    }\n" +
+            "}\n";
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("processor");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void generatedAdapterMatchesTheReflectivePath() throws Exception {
+        Class<?> generated = compile("generated", true);
+        Class<?> reflective = compile("reflective", false);
+
+        assertNotNull(Class.forName("sample.SampleConfigAdapter", false, generated.getClassLoader()));
+        assertFalse(Files.exists(directory.resolve("reflective/sample/SampleConfigAdapter.class")));
+
+        AdapterHandler handler = AdapterHandler.create(new CamelCaseNamingStrategy());
+        MemorySection written = handler.adaptOut(generated.newInstance(), MemorySection.class);
+        MemorySection expected = handler.adaptOut(reflective.newInstance(), MemorySection.class);
+
+        assertEquals(scalars(expected), scalars(written));
+        assertEquals(fields(reflective, handler.adaptIn(configOf(written), null, reflective)),
+                fields(generated, handler.adaptIn(configOf(expected), null, generated)));
+    }
+
+    @Test
+    public void generatedAdapterReportsUnknownKeysOnce() throws Exception {
+        Class<?> generated = compile("generated", true);
+        List<String> reports = new ArrayList<>();
+        AdapterHandler handler = AdapterHandler.create(new CamelCaseNamingStrategy(), false,
+                (type, path) -> reports.add(type.getSimpleName() + " " + path));
+        MemoryConfiguration config = new MemoryConfiguration();
+
+        config.set("start-message", "hi");
+        config.set("extra", 1);
+        config.set("inner.other", 2);
+
+        assertEquals("hi", fields(generated, handler.adaptIn(config, null, generated)).get("startMessage"));
+        assertEquals(Arrays.asList("Sample extra", "Inner inner.other"), reports);
+    }
+
+    private Class<?> compile(String name, boolean process) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("tests need a JDK", compiler);
+
+        File output = Files.createDirectories(directory.resolve(name)).toFile();
+        // surefire runs tests from a manifest-only jar, and passes the real class path separately
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        List<String> options = new ArrayList<>(Arrays.asList("-classpath", classPath,
+                "-d", output.getPath(), "-nowarn"));
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///sample/Sample.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return SAMPLE;
+            }
+        };
+
+        if (!process) {
+            options.add("-proc:none");
+        }
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null,
+                Collections.singletonList(source));
+
+        if (process) {
+            task.setProcessors(Collections.singletonList(new ConfigSerializableProcessor()));
+        }
+
+        assertTrue("sample did not compile", task.call());
+        return new URLClassLoader(new URL[] {output.toURI().toURL()}, getClass().getClassLoader())
+                .loadClass("sample.Sample");
+    }
+
+    private static MemoryConfiguration configOf(ConfigurationSection section) {
+        MemoryConfiguration config = new MemoryConfiguration();
+        section.getValues(true).forEach((key, value) -> {
+            if (!(value instanceof ConfigurationSection)) {
+                config.set(key, value);
+            }
+        });
+        return config;
+    }
+
+    // sections only have identity equality, so they are compared by their values
+    private static Map<String, Object> scalars(ConfigurationSection section) {
+        Map<String, Object> values = new TreeMap<>();
+        section.getValues(true).forEach((key, value) -> {
+            if (!(value instanceof ConfigurationSection)) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    private static Map<String, Object> fields(Class<?> type, Object instance) throws IllegalAccessException {
+        Map<String, Object> values = new TreeMap<>();
+
+        for (Field field : type.getDeclaredFields()) {
+            field.setAccessible(true);
+            Object value = field.get(instance);
+
+            if (value != null && value.getClass().getName().startsWith("sample.")) {
+                values.putAll(fields(value.getClass(), value));
+            } else if (value instanceof Map) {
+                values.put(field.getName(), ((Map<?, ?>) value).keySet());
+            } else {
+                values.put(field.getName(), value);
+            }
+        }
+
+        return values;
+    }
+}
@@ -16,28 +16,85 @@
 package xyz.mkotb.configapi;
 
 import org.bukkit.ChatColor;
-import org.bukkit.configuration.MemorySection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.yaml.snakeyaml.error.YAMLException;
 import xyz.mkotb.configapi.comment.CommentHelper;
 import xyz.mkotb.configapi.ex.ClassStructureException;
 import xyz.mkotb.configapi.ex.InternalProcessingException;
+import xyz.mkotb.configapi.internal.AtomicFileWriter;
+import xyz.mkotb.configapi.internal.BinarySidecar;
+import xyz.mkotb.configapi.internal.ConfigParser;
+import xyz.mkotb.configapi.internal.DaemonThreadFactory;
+import xyz.mkotb.configapi.internal.DocumentState;
+import xyz.mkotb.configapi.internal.FileWatcher;
 import xyz.mkotb.configapi.internal.InternalsHelper;
-import xyz.mkotb.configapi.internal.SerializableMemorySection;
+import xyz.mkotb.configapi.internal.ParsedConfigCache;
+import xyz.mkotb.configapi.internal.PlatformCharset;
+import xyz.mkotb.configapi.internal.ValueSnapshot;
+import xyz.mkotb.configapi.internal.WriteBehindQueue;
+import xyz.mkotb.configapi.internal.YamlElementReader;
+import xyz.mkotb.configapi.internal.YamlEmitter;
+import xyz.mkotb.configapi.internal.YamlTreeLoader;
 import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+import xyz.mkotb.configapi.internal.adapt.ClassBindingPlan;
 import xyz.mkotb.configapi.internal.dummy.CentralDummyHolder;
 import xyz.mkotb.configapi.internal.naming.CamelCaseNamingStrategy;
 import xyz.mkotb.configapi.internal.naming.NamingStrategy;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class ConfigFactory {
     private volatile NamingStrategy namingStrategy = new CamelCaseNamingStrategy();
+    private volatile boolean compiledCodecs = false;
+    private volatile boolean forceWrites = false;
+    private volatile long saveWindow = 500;
+    private final AtomicFileWriter fileWriter = new AtomicFileWriter(512); // configs and their sidecars
+    private final WriteBehindQueue writeBehind = new WriteBehindQueue();
+    private final ThreadPoolExecutor workers;
+    private volatile Executor completionExecutor;
+    private volatile ParsedConfigCache parseCache;
+    private volatile long reloadDebounce = 250;
+    private volatile boolean binarySidecars = false;
+    private volatile boolean directBinding = false;
+    private volatile BiConsumer<Class<?>, String> unknownKeyHandler;
+    private final BinarySidecar sidecars;
+    private final Map<Path, WatchedConfig<?>> watched = new ConcurrentHashMap<>();
+    private FileWatcher watcher;
+    private final DocumentState.Cache documents = new DocumentState.Cache(256);
     private final JavaPlugin plugin;
 
     private ConfigFactory(JavaPlugin plugin) {
@@ -47,6 +104,12 @@ public final class ConfigFactory {
         if (directory.exists()) {
             directory.mkdirs();
         }
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.workers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DaemonThreadFactory("ConfigAPI Worker"));
+        workers.allowCoreThreadTimeOut(true);
+        this.sidecars = new BinarySidecar(fileWriter, plugin.getLogger());
     }
 
     public static ConfigFactory newFactory(JavaPlugin plugin) {
@@ -77,48 +140,573 @@ public final class ConfigFactory {
             return dummy;
         }
 
-        AdapterHandler handler = AdapterHandler.create(namingStrategy);
-        FileConfiguration data = YamlConfiguration.loadConfiguration(config);
+        AdapterHandler handler = handler();
+
+        if (bindsDirectly()) {
+            Map<?, ?> values;
+
+            try {
+                values = YamlTreeLoader.load(config);
+            } catch (Exception ex) { // YamlConfiguration#loadConfiguration logs and carries on empty
+                logLoadFailure(config.toPath(), ex);
+                values = Collections.emptyMap();
+            }
+
+            return colourizeFields(handler.adaptValueIn(values, classOf));
+        }
+
+        FileConfiguration data = parse(config, YamlConfiguration::loadConfiguration);
+
         return colourizeFields(handler.adaptIn(data, null, classOf));
     }
 
+    public <T> CompletableFuture<T> fromFileAsync(String name, Class<T> classOf) {
+        return fromFileAsync(new File(configDirectory(), name + ".yml"), classOf);
+    }
+
+    /*
+     * Reads, parses and binds the config on a worker thread, including writing
+     * the defaults if the file does not exist yet. The future completes through
+     * the completion executor when one is set, otherwise on the worker thread.
+     */
+    public <T> CompletableFuture<T> fromFileAsync(File config, Class<T> classOf) {
+        return deliver(CompletableFuture.supplyAsync(() -> fromFile(config, classOf), workers));
+    }
+
+    private <T> CompletableFuture<T> deliver(CompletableFuture<T> future) {
+        Executor executor = completionExecutor;
+
+        if (executor == null) {
+            return future;
+        }
+
+        CompletableFuture<T> delivered = new CompletableFuture<>();
+
+        future.whenComplete((result, ex) -> {
+            try {
+                executor.execute(() -> {
+                    if (ex != null) {
+                        delivered.completeExceptionally(ex);
+                    } else {
+                        delivered.complete(result);
+                    }
+                });
+            } catch (RuntimeException rejected) { // e.g. the plugin was disabled in the meantime
+                delivered.completeExceptionally(ex != null ? ex : rejected);
+            }
+        });
+
+        return delivered;
+    }
+
+    /*
+     * Loads every .yml file directly inside the directory in parallel on the
+     * worker pool, keyed by file name without the extension. Files which fail
+     * to load are left out and logged through the plugin's logger.
+     */
+    public <T> Map<String, T> loadAll(Path directory, Class<T> classOf) {
+        return loadAll(directory, classOf, this::logLoadFailure);
+    }
+
+    /*
+     * As loadAll, with files which fail to load passed to the error handler
+     * on the calling thread once the batch has finished
+     */
+    public <T> Map<String, T> loadAll(Path directory, Class<T> classOf, BiConsumer<Path, Exception> errorHandler) {
+        List<Path> files = listConfigs(directory);
+        List<CompletableFuture<T>> loads = startLoads(files, classOf);
+
+        try {
+            CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ignored) { // reported per file below
+        }
+
+        return collectLoads(files, loads, errorHandler);
+    }
+
+    /*
+     * As loadAll, without blocking; the error handler is called on a worker thread
+     */
+    public <T> CompletableFuture<Map<String, T>> loadAllAsync(Path directory, Class<T> classOf,
+                                                              BiConsumer<Path, Exception> errorHandler) {
+        return deliver(CompletableFuture.supplyAsync(() -> listConfigs(directory), workers)
+                .thenCompose((files) -> {
+                    List<CompletableFuture<T>> loads = startLoads(files, classOf);
+                    return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                            .handle((ignored, failure) -> collectLoads(files, loads, errorHandler));
+                }));
+    }
+
+    private <T> List<CompletableFuture<T>> startLoads(List<Path> files, Class<T> classOf) {
+        AdapterHandler handler = handler();
+        List<CompletableFuture<T>> loads = new ArrayList<>(files.size());
+
+        for (Path file : files) {
+            loads.add(CompletableFuture.supplyAsync(() -> load(file, handler, classOf), workers));
+        }
+
+        return loads;
+    }
+
+    private <T> Map<String, T> collectLoads(List<Path> files, List<CompletableFuture<T>> loads,
+                                            BiConsumer<Path, Exception> errorHandler) {
+        Map<String, T> configs = new LinkedHashMap<>();
+
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String name = file.getFileName().toString();
+
+            try {
+                configs.put(name.substring(0, name.length() - 4), loads.get(i).join());
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+
+                if (!(cause instanceof Exception)) {
+                    throw ex;
+                }
+
+                errorHandler.accept(file, (Exception) cause);
+            }
+        }
+
+        return configs;
+    }
+
+    private <T> T load(Path file, AdapterHandler handler, Class<T> classOf) {
+        Object data;
+
+        try {
+            data = bindsDirectly() ? YamlTreeLoader.load(file.toFile()) : parse(file.toFile(), this::parseStrict);
+        } catch (Exception ex) {
+            throw new InternalProcessingException("Unable to load config from " + file.getFileName() + "!", ex);
+        }
+
+        return colourizeFields(handler.adaptValueIn(data, classOf));
+    }
+
+    private boolean bindsDirectly() {
+        return directBinding && parseCache == null && !binarySidecars;
+    }
+
+    /*
+     * Parses through the parsed tree cache and binary sidecars, where enabled
+     */
+    private <X extends Exception> YamlConfiguration parse(File file, ConfigParser<X> parser) throws X {
+        ParsedConfigCache cache = parseCache;
+        ConfigParser<X> source = binarySidecars ? (f) -> sidecars.load(f, parser) : parser;
+        return cache == null ? source.parse(file) : cache.load(file, source);
+    }
+
+    private YamlConfiguration parseStrict(File file) throws Exception {
+        YamlConfiguration data = new YamlConfiguration();
+        data.load(file);
+        return data;
+    }
+
+    private List<Path> listConfigs(Path directory) {
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.yml")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException ex) {
+            throw new InternalProcessingException("Unable to list configs in " + directory + "!", ex);
+        }
+
+        files.sort(null);
+        return files;
+    }
+
+    private void logLoadFailure(Path file, Exception ex) {
+        plugin.getLogger().log(Level.SEVERE, "Could not load config " + file.getFileName(), ex);
+    }
+
+    public <T> Stream<T> stream(String name, String path, Class<T> classOf) {
+        return stream(new File(configDirectory(), name + ".yml"), path, classOf);
+    }
+
+    /*
+     * Streams the elements of the list or section at path, binding each one as
+     * it is reached rather than parsing the whole file into memory first. The
+     * stream holds the file open until it is exhausted or closed; a missing
+     * path gives an empty stream.
+     */
+    public <T> Stream<T> stream(File config, String path, Class<T> classOf) {
+        AdapterHandler handler = handler();
+        Reader source = null;
+        YamlElementReader reader;
+        boolean opened = false;
+
+        try {
+            source = new InputStreamReader(new FileInputStream(config), PlatformCharset.reading());
+            reader = new YamlElementReader(source, pathOf(path));
+            opened = true;
+        } catch (IOException | YAMLException ex) {
+            throw new InternalProcessingException("Unable to load config from " + config.getName() + "!", ex);
+        } finally {
+            if (!opened) { // whatever was thrown, including while seeking to path
+                closeQuietly(source);
+            }
+        }
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED), false)
+                .map((raw) -> handler.adaptValueIn(raw, classOf))
+                .onClose(() -> closeQuietly(reader));
+    }
+
+    private static String[] pathOf(String path) {
+        return path == null || path.isEmpty() ? new String[0] : path.split("\\.");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public <T> int reloadInto(String name, T existing) {
+        return reloadInto(new File(configDirectory(), name + ".yml"), existing);
+    }
+
+    /*
+     * Reloads the file into an existing instance in place, keeping its nested
+     * objects, lists and maps wherever their shape is unchanged so references
+     * to them stay valid (see AdapterHandler#rebind). Returns the number of
+     * values changed. A file which fails to load leaves the instance untouched;
+     * one which doesn't exist yet is written from it. That is why the file is
+     * bound to a fresh graph first and merged from there, which allocates as
+     * much as a load does; the merge itself only allocates for replaced values.
+     */
+    public <T> int reloadInto(File config, T existing) {
+        if (!config.exists()) {
+            save(config, existing);
+            return 0;
+        }
+
+        AdapterHandler handler = handler();
+        return handler.rebind(load(config.toPath(), handler, existing.getClass()), existing);
+    }
+
+    public <T> WatchedConfig<T> watch(String name, Class<T> classOf, ReloadMode mode) {
+        return watch(new File(configDirectory(), name + ".yml"), classOf, mode);
+    }
+
+    /*
+     * Loads the config and keeps it in sync with edits to its file. Bursts of
+     * events are debounced, files which fail to load keep their current values,
+     * and writes made by this factory are not picked up as edits. Reloads are
+     * applied through the completion executor when one is set; without one,
+     * REBIND reloads run on the server thread so the live instance is never
+     * changed under its readers. A file can only be watched once at a time.
+     */
+    public <T> WatchedConfig<T> watch(File config, Class<T> classOf, ReloadMode mode) {
+        Path path = config.toPath().toAbsolutePath().normalize();
+
+        if (watched.containsKey(path)) {
+            throw alreadyWatched(config);
+        }
+
+        WatchedConfig<T> watchedConfig = new WatchedConfig<>(this, config, classOf, mode, fromFile(config, classOf));
+
+        if (watched.putIfAbsent(path, watchedConfig) != null) {
+            throw alreadyWatched(config);
+        }
+
+        try {
+            fileWatcher().watch(path);
+        } catch (IOException ex) {
+            watched.remove(path, watchedConfig);
+            throw new InternalProcessingException("Unable to watch " + config + "!", ex);
+        }
+
+        return watchedConfig;
+    }
+
+    private static InternalProcessingException alreadyWatched(File config) {
+        return new InternalProcessingException(config + " is already being watched, close its WatchedConfig first!");
+    }
+
+    void unwatch(WatchedConfig<?> config) {
+        Path path = config.file().toPath().toAbsolutePath().normalize();
+
+        if (watched.remove(path, config)) {
+            FileWatcher current = watcher;
+
+            if (current != null) {
+                current.unwatch(path);
+            }
+        }
+    }
+
+    /*
+     * Stops every watch made through this factory and its watcher thread
+     */
+    public synchronized void stopWatching() {
+        watched.clear();
+
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignored) {
+            }
+
+            watcher = null;
+        }
+    }
+
+    private synchronized FileWatcher fileWatcher() throws IOException {
+        if (watcher == null) {
+            watcher = new FileWatcher(this::reload, fileWriter::isCurrent, reloadDebounce);
+        }
+
+        return watcher;
+    }
+
+    private void reload(Path file) {
+        WatchedConfig<?> config = watched.get(file);
+
+        if (config != null && Files.isRegularFile(file)) {
+            reload(config, file);
+        }
+    }
+
+    private <T> void reload(WatchedConfig<T> config, Path file) {
+        AdapterHandler handler = handler();
+        T loaded;
+
+        try {
+            loaded = load(file, handler, config.type());
+        } catch (RuntimeException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not reload config " + file.getFileName() +
+                    ", keeping the current values", ex);
+            return;
+        }
+
+        Runnable apply = () -> config.apply(loaded, handler);
+        Executor executor = completionExecutor;
+
+        if (executor == null && config.mode() == ReloadMode.REBIND) { // never mutate the live instance off its thread
+            executor = (task) -> plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+
+        try {
+            if (executor == null) {
+                apply.run();
+            } else {
+                executor.execute(apply);
+            }
+        } catch (RuntimeException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Could not apply reloaded config " + file.getFileName(), ex);
+        }
+    }
+
     public <T> void save(String name, T object) {
         save(new File(configDirectory(), name + ".yml"), object);
     }
 
+    /*
+     * Saving the same object to the same file again only re-adapts the fields
+     * which changed since, and returns without touching the file if none did.
+     * Supersedes asynchronous saves of the file not yet written.
+     */
     public <T> void save(File config, T object) {
-        if (!config.exists()) {
+        AdapterHandler handler = handler();
+        ClassBindingPlan plan = handler.planFor(object.getClass());
+
+        writeBehind.supersede(config.toPath());
+
+        if (plan == null) {
+            write(config, snapshot(object));
+            return;
+        }
+
+        Path path = config.toPath().toAbsolutePath().normalize();
+        DocumentState document = documents.get(path);
+
+        synchronized (document) {
             try {
-                config.getParentFile().mkdirs();
-                config.createNewFile();
+                byte[] contents = document.render(object, handler, plan, path);
+
+                if (contents == null) {
+                    return;
+                }
+
+                Files.createDirectories(path.getParent());
+                fileWriter.write(path, contents, forceWrites);
+                invalidateCached(path);
+                document.written(path);
             } catch (IOException ex) {
-                throw new InternalProcessingException("Could not create file!", ex);
+                throw new InternalProcessingException("Unable to save config to file!", ex);
             }
         }
+    }
+
+    public <T> CompletableFuture<Void> saveAsync(String name, T object) {
+        return saveAsync(new File(configDirectory(), name + ".yml"), object);
+    }
+
+    /*
+     * Adapts the object on the calling thread and leaves the YAML dump and disk
+     * write to a background thread. Saves of the same file made within the save
+     * window collapse into one write of the latest snapshot, and a save, saveAll
+     * or writeStream of the file before it is written supersedes it, completing
+     * the returned future. The snapshot is a deep copy, so the object may be
+     * changed as soon as this returns.
+     */
+    public <T> CompletableFuture<Void> saveAsync(File config, T object) {
+        Snapshot snapshot = snapshot(object).detached();
+
+        forgetDocument(config.toPath()); // so a save made before this is written can't be skipped
+        return writeBehind.submit(config.toPath(), () -> write(config, snapshot), saveWindow);
+    }
+
+    /*
+     * Waits for all pending asynchronous saves, writing those still inside their
+     * window straight away. Call from onDisable; returns false on timeout.
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        return writeBehind.flush(timeout, unit);
+    }
+
+    private Snapshot snapshot(Object object) {
+        AdapterHandler handler = handler();
+        return new Snapshot(CommentHelper.extractHeader(object.getClass()),
+                CommentHelper.extractComments(object, namingStrategy), handler.adaptOutValues(object));
+    }
+
+    private void write(File config, Snapshot snapshot) {
+        File directory = config.getAbsoluteFile().getParentFile();
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        try {
+            fileWriter.write(config.toPath(), render(snapshot), forceWrites);
+            invalidateCached(config.toPath());
+            forgetDocument(config.toPath());
+        } catch (IOException ex) {
+            throw new InternalProcessingException("Unable to save config to file!", ex);
+        }
+    }
+
+    private byte[] render(Snapshot snapshot) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+        try (Writer out = new OutputStreamWriter(buffer)) {
+            new YamlEmitter().emit(snapshot.header, snapshot.values, snapshot.comments, out);
+        } catch (IOException ex) {
+            throw new InternalProcessingException("Unable to serialise config!", ex);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    public <T> SaveSummary saveAll(Map<String, T> configs) {
+        return saveAll(configDirectory().toPath(), configs);
+    }
+
+    /*
+     * Saves each entry to <name>.yml in the directory. Objects are adapted and
+     * dumped in parallel on the worker pool, then written in name order on the
+     * calling thread, with one sync of the directory once everything is in place.
+     */
+    public <T> SaveSummary saveAll(Path directory, Map<String, T> configs) {
+        List<String> names = new ArrayList<>(configs.keySet());
+        List<CompletableFuture<byte[]>> renders = new ArrayList<>(names.size());
+        SaveSummary summary = new SaveSummary();
 
-        StringBuilder sb = new StringBuilder();
-        Map<String, String[]> comments = CommentHelper.extractComments(object, namingStrategy);
-        String[] header = CommentHelper.extractHeader(object.getClass());
-        AdapterHandler handler = AdapterHandler.create(namingStrategy);
-        MemorySection section = handler.adaptOut(object, MemorySection.class);
+        names.sort(null);
 
-        if (header != null) {
-            CommentHelper.encodeComments(header, sb);
+        for (String name : names) {
+            T object = configs.get(name);
+            renders.add(CompletableFuture.supplyAsync(() -> render(snapshot(object)), workers));
         }
 
-        ((SerializableMemorySection) section).map().forEach((k, v) -> {
-            FileConfiguration fieldData = new YamlConfiguration();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new InternalProcessingException("Unable to create " + directory + "!", ex);
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+
+            try {
+                Path file = directory.resolve(name + ".yml");
+                byte[] contents = renders.get(i).join();
+
+                writeBehind.supersede(file);
+                forgetDocument(file);
+
+                if (fileWriter.write(file, contents, forceWrites)) {
+                    invalidateCached(file);
+                    summary.written.add(name);
+                } else {
+                    summary.unchanged.add(name);
+                }
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
 
-            if (comments.containsKey(k)) {
-                CommentHelper.encodeComments(comments.get(k), sb);
+                if (!(cause instanceof Exception)) {
+                    throw ex;
+                }
+
+                summary.failures.put(name, (Exception) cause);
+            } catch (IOException | RuntimeException ex) {
+                summary.failures.put(name, ex);
             }
+        }
 
-            fieldData.set(k, v);
-            sb.append(fieldData.saveToString());
-        });
+        if (!summary.written.isEmpty()) {
+            fileWriter.syncDirectory(directory);
+        }
+
+        return summary;
+    }
+
+    public <T> void writeStream(String name, String path, Iterator<? extends T> elements, Class<T> classOf) {
+        writeStream(new File(configDirectory(), name + ".yml"), path, elements, classOf);
+    }
+
+    public <T> void writeStream(File config, String path, Stream<? extends T> elements, Class<T> classOf) {
+        try (Stream<? extends T> stream = elements) {
+            writeStream(config, path, stream.iterator(), classOf);
+        }
+    }
+
+    /*
+     * Writes the file as just the list at path, adapting and emitting one element
+     * at a time so the list never has to be held in memory. The list is written
+     * as a field declared as a collection of classOf would be. The file is
+     * replaced atomically once every element has been written.
+     */
+    public <T> void writeStream(File config, String path, Iterator<? extends T> elements, Class<T> classOf) {
+        AdapterHandler handler = handler();
+        File directory = config.getAbsoluteFile().getParentFile();
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
 
-        try (PrintWriter out = new PrintWriter(config)){
-            out.print(sb.toString());
+        writeBehind.supersede(config.toPath());
+
+        try {
+            fileWriter.write(config.toPath(), (out) -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+                new YamlEmitter().emitSequence(pathOf(path), elements, classOf, handler, writer);
+                writer.flush();
+            }, forceWrites);
+            invalidateCached(config.toPath());
+            forgetDocument(config.toPath());
         } catch (IOException ex) {
             throw new InternalProcessingException("Unable to save config to file!", ex);
         }
@@ -146,6 +734,10 @@ public final class ConfigFactory {
         return object;
     }
 
+    private AdapterHandler handler() {
+        return AdapterHandler.create(namingStrategy, compiledCodecs, unknownKeyHandler);
+    }
+
     private File configDirectory() {
         return plugin.getDataFolder();
     }
@@ -157,4 +749,193 @@ public final class ConfigFactory {
     public void setPreferredStrategy(NamingStrategy preferredStrategy) {
         this.namingStrategy = preferredStrategy;
     }
+
+    public boolean compiledCodecs() {
+        return compiledCodecs;
+    }
+
+    /*
+     * Binds config classes through codecs compiled once per class instead of
+     * the generic reflective path, for both reads and saves. Worthwhile for
+     * large, deeply nested configs.
+     */
+    public void setCompiledCodecs(boolean compiledCodecs) {
+        this.compiledCodecs = compiledCodecs;
+    }
+
+    public boolean forceWrites() {
+        return forceWrites;
+    }
+
+    /*
+     * Flushes saved configs to the storage device before they replace the old
+     * file. Safer across power loss, at the cost of a sync per changed file.
+     */
+    public void setForceWrites(boolean forceWrites) {
+        this.forceWrites = forceWrites;
+    }
+
+    public long saveWindow() {
+        return saveWindow;
+    }
+
+    /*
+     * How long, in milliseconds, an asynchronous save waits for newer saves of
+     * the same file before writing
+     */
+    public void setSaveWindow(long saveWindow) {
+        this.saveWindow = saveWindow;
+    }
+
+    public Executor completionExecutor() {
+        return completionExecutor;
+    }
+
+    /*
+     * Where futures returned by the async loading methods complete; null
+     * completes them on the worker thread
+     */
+    public void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+    }
+
+    /*
+     * Completes async loads on the server thread through the Bukkit scheduler
+     */
+    public void completeOnMainThread() {
+        this.completionExecutor = (task) -> plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    /*
+     * Keeps up to this many parsed config trees, so loading an unchanged file
+     * again skips the YAML parse. 0, the default, disables the cache.
+     */
+    public void setCacheSize(int entries) {
+        this.parseCache = entries > 0 ? new ParsedConfigCache(entries) : null;
+    }
+
+    public CacheStats cacheStats() {
+        ParsedConfigCache cache = parseCache;
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    /*
+     * Drops every cached tree, e.g. after files were changed behind the server's back
+     * within the file system's timestamp resolution
+     */
+    public void clearCache() {
+        ParsedConfigCache cache = parseCache;
+
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /*
+     * Drops the state save keeps for the file, which was or will be written without it
+     */
+    private void forgetDocument(Path file) {
+        documents.invalidate(file.toAbsolutePath().normalize());
+    }
+
+    private void invalidateCached(Path file) {
+        ParsedConfigCache cache = parseCache;
+
+        if (cache != null) {
+            cache.invalidate(file);
+        }
+    }
+
+    public boolean binarySidecars() {
+        return binarySidecars;
+    }
+
+    /*
+     * Keeps a binary copy of each parsed config next to its file (<name>.yml.bin)
+     * which is loaded instead of parsing the YAML for as long as the YAML is unchanged
+     */
+    public void setBinarySidecars(boolean binarySidecars) {
+        this.binarySidecars = binarySidecars;
+    }
+
+    public boolean directBinding() {
+        return directBinding;
+    }
+
+    /*
+     * Binds configs straight from SnakeYAML's parsed maps instead of a
+     * YamlConfiguration's sections. The parsed tree cache and binary sidecars
+     * still load through sections, so this only applies while both are off.
+     */
+    public void setDirectBinding(boolean directBinding) {
+        this.directBinding = directBinding;
+    }
+
+    public BiConsumer<Class<?>, String> unknownKeyHandler() {
+        return unknownKeyHandler;
+    }
+
+    /*
+     * Called while loading with the class being read and the path of each key
+     * in its section which no field is bound to. Keys are not reported for
+     * classes which keep them in a @Self section. Null ignores them, the default.
+     */
+    public void setUnknownKeyHandler(BiConsumer<Class<?>, String> unknownKeyHandler) {
+        this.unknownKeyHandler = unknownKeyHandler;
+    }
+
+    /*
+     * Sets the unknown key handler to one which logs a warning for each key.
+     * A key the naming strategy renamed some other field to is usually in the
+     * wrong section, so the warning names that field.
+     */
+    public void logUnknownKeys() {
+        setUnknownKeyHandler((type, path) -> {
+            String key = path.substring(path.lastIndexOf('.') + 1);
+            String field = namingStrategy.reverse(key);
+            String message = "Unknown key " + path + " while reading " + type.getName();
+
+            if (field != null && !field.equals(key)) {
+                message += "; it is the key of a field named " + field + ", which " + type.getSimpleName() +
+                        " does not declare";
+            }
+
+            plugin.getLogger().warning(message);
+        });
+    }
+
+    public long reloadDebounce() {
+        return reloadDebounce;
+    }
+
+    /*
+     * How long, in milliseconds, a watched file must go without further events
+     * before it is reloaded
+     */
+    public synchronized void setReloadDebounce(long reloadDebounce) {
+        this.reloadDebounce = reloadDebounce;
+
+        if (watcher != null) {
+            watcher.setDebounce(reloadDebounce);
+        }
+    }
+
+    private static final class Snapshot {
+        private final String[] header;
+        private final Map<String, String[]> comments;
+        private final Map<String, Object> values;
+
+        private Snapshot(String[] header, Map<String, String[]> comments, Map<String, Object> values) {
+            this.header = header;
+            this.comments = comments;
+            this.values = values;
+        }
+
+        /*
+         * A copy sharing nothing mutable with the objects the values were adapted from
+         */
+        private Snapshot detached() {
+            return new Snapshot(header, comments, ValueSnapshot.copyOf(values));
+        }
+    }
 }
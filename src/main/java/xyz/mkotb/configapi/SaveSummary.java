@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Outcome of a bulk save, by config name
+ */
+public final class SaveSummary {
+    final List<String> written = new ArrayList<>();
+    final List<String> unchanged = new ArrayList<>();
+    final Map<String, Exception> failures = new LinkedHashMap<>();
+
+    SaveSummary() {
+    }
+
+    public List<String> written() {
+        return Collections.unmodifiableList(written);
+    }
+
+    /*
+     * Configs whose file already held exactly what would have been written
+     */
+    public List<String> unchanged() {
+        return Collections.unmodifiableList(unchanged);
+    }
+
+    public Map<String, Exception> failures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    @Override
+    public String toString() {
+        return "SaveSummary{written=" + written.size() + ", unchanged=" + unchanged.size() +
+                ", failed=" + failures.size() + "}";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi;
+
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/*
+ * A config kept in sync with its file, see ConfigFactory#watch
+ */
+public final class WatchedConfig<T> {
+    private final ConfigFactory factory;
+    private final File file;
+    private final Class<T> type;
+    private final ReloadMode mode;
+    private final AtomicReference<T> current;
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+
+    WatchedConfig(ConfigFactory factory, File file, Class<T> type, ReloadMode mode, T initial) {
+        this.factory = factory;
+        this.file = file;
+        this.type = type;
+        this.mode = mode;
+        this.current = new AtomicReference<>(initial);
+    }
+
+    public T get() {
+        return current.get();
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public ReloadMode mode() {
+        return mode;
+    }
+
+    /*
+     * Called with the current instance after every reload which changed it
+     */
+    public WatchedConfig<T> onReload(Consumer<T> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /*
+     * Stops picking up edits to the file
+     */
+    public void close() {
+        factory.unwatch(this);
+    }
+
+    void apply(T loaded, AdapterHandler handler) {
+        T instance = current.get();
+
+        if (mode == ReloadMode.SWAP) {
+            current.set(loaded);
+            instance = loaded;
+        } else if (handler.rebind(loaded, instance) == 0) {
+            return;
+        }
+
+        for (Consumer<T> listener : listeners) {
+            listener.accept(instance);
+        }
+    }
+}
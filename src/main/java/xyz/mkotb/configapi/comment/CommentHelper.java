@@ -17,6 +17,7 @@ package xyz.mkotb.configapi.comment;
 
 import xyz.mkotb.configapi.internal.naming.NamingStrategy;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.HashMap;
@@ -27,8 +28,16 @@ public final class CommentHelper {
     }
 
     public static void encodeComments(String[] comments, StringBuilder builder) {
+        try {
+            encodeComments(comments, (Appendable) builder);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // StringBuilder does not throw
+        }
+    }
+
+    public static void encodeComments(String[] comments, Appendable out) throws IOException {
         for (String comment : comments) {
-            builder.append("# ").append(comment).append(System.lineSeparator());
+            out.append("# ").append(comment).append(System.lineSeparator());
         }
     }
 
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Replaces files atomically through a temp file in the same directory, skipping
+ * the write when the contents match what was last persisted and the file has
+ * not been touched since. Only the most recently used files are remembered;
+ * a forgotten one is simply written again.
+ */
+public final class AtomicFileWriter {
+    private final Lru states;
+
+    public AtomicFileWriter(int capacity) {
+        this.states = new Lru(capacity);
+    }
+
+    /*
+     * Returns false when the write was skipped as the file is already up to date
+     */
+    public boolean write(Path path, byte[] contents, boolean force) throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        FileState state = stateOf(target);
+        byte[] digest = digest(contents);
+
+        synchronized (state) {
+            if (state.matches(target, contents.length, digest)) {
+                return false;
+            }
+
+            replace(target, state, (out) -> out.write(contents), force);
+            state.update(target, digest);
+            return true;
+        }
+    }
+
+    /*
+     * Always writes, streaming the contents into the temp file rather than
+     * holding them in memory first
+     */
+    public void write(Path path, Contents contents, boolean force) throws IOException {
+        Path target = path.toAbsolutePath().normalize();
+        FileState state = stateOf(target);
+        MessageDigest digest = newDigest();
+
+        synchronized (state) {
+            replace(target, state, (out) -> contents.writeTo(new DigestOutputStream(out, digest)), force);
+            state.update(target, digest.digest());
+        }
+    }
+
+    /*
+     * Writes through symlinks to the file they point at, and gives the new file
+     * the permissions and owner of the one it replaces
+     */
+    private void replace(Path target, FileState state, Contents contents, boolean force) throws IOException {
+        boolean exists = Files.exists(target);
+        Path real = exists ? target.toRealPath() : target;
+        Path temp = createTemp(real);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                contents.writeTo(Channels.newOutputStream(channel));
+
+                if (force) {
+                    channel.force(true);
+                }
+            }
+
+            if (exists) {
+                copyAttributes(real, temp);
+            }
+
+            try {
+                Files.move(temp, real, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, real, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException ex) {
+            state.clear();
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
+
+    /*
+     * Created as a plain new file would be, rather than with createTempFile's
+     * owner-only permissions
+     */
+    private static Path createTemp(Path target) throws IOException {
+        while (true) {
+            Path temp = target.resolveSibling("." + target.getFileName() + "." +
+                    Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException ignored) {
+            }
+        }
+    }
+
+    private static void copyAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+
+        if (view == null) { // not a posix file system, the new file keeps the directory's defaults
+            return;
+        }
+
+        PosixFileAttributes attributes = Files.readAttributes(from, PosixFileAttributes.class);
+        view.setPermissions(attributes.permissions());
+
+        try { // only allowed to privileged users, who are the ones a change of owner would surprise
+            view.setOwner(attributes.owner());
+            view.setGroup(attributes.group());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*
+     * Whether the file on disk is still exactly what this writer last put there
+     */
+    public boolean isCurrent(Path path) {
+        Path target = path.toAbsolutePath().normalize();
+        FileState state;
+
+        synchronized (states) {
+            state = states.get(target);
+        }
+
+        if (state == null) {
+            return false;
+        }
+
+        synchronized (state) {
+            if (state.unchanged(target)) {
+                return true;
+            }
+        }
+
+        forget(target, state); // changed or gone, nothing left worth remembering
+        return false;
+    }
+
+    /*
+     * Makes renames into the directory durable. Not every platform allows
+     * opening a directory for this, in which case it is a no-op.
+     */
+    public void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*
+     * Forgets what was last persisted to this path, so the next write always goes through
+     */
+    public void invalidate(Path path) {
+        Path target = path.toAbsolutePath().normalize();
+
+        synchronized (states) {
+            states.remove(target);
+        }
+    }
+
+    private FileState stateOf(Path target) {
+        synchronized (states) {
+            return states.computeIfAbsent(target, (p) -> new FileState());
+        }
+    }
+
+    private void forget(Path target, FileState state) {
+        synchronized (states) {
+            states.remove(target, state);
+        }
+    }
+
+    static byte[] digest(byte[] contents) {
+        return newDigest().digest(contents);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) { // every java platform is required to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /*
+     * Writes a file's contents, flushing anything it buffers before returning
+     */
+    public interface Contents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final class FileState {
+        private byte[] digest;
+        private long size = -1;
+        private long modified = -1;
+
+        boolean matches(Path target, long length, byte[] digest) {
+            if (this.digest == null || size != length || !Arrays.equals(this.digest, digest)) {
+                return false;
+            }
+
+            return unchanged(target);
+        }
+
+        boolean unchanged(Path target) {
+            if (digest == null) {
+                return false;
+            }
+
+            try { // someone else may have written the file since
+                BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+                return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+        void update(Path target, byte[] digest) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+                this.digest = digest;
+                this.size = attributes.size();
+                this.modified = attributes.lastModifiedTime().toMillis();
+            } catch (IOException ex) {
+                clear();
+            }
+        }
+
+        void clear() {
+            digest = null;
+            size = -1;
+            modified = -1;
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    private static final class Lru extends LinkedHashMap<Path, FileState> {
+        private final int capacity;
+
+        private Lru(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, FileState> eldest) {
+            return size() > capacity;
+        }
+    }
+}
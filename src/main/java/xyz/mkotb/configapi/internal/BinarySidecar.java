@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Keeps a binary copy of each parsed YAML tree next to its file (<name>.yml.bin)
+ * as length-prefixed tagged values, stamped with the SHA-256 of the YAML it was
+ * parsed from. Loading reads the sidecar while the stamp matches and parses the
+ * YAML, rewriting the sidecar, once it does not. Trees holding values without a
+ * tag, such as deserialized ConfigurationSerializables, get no sidecar; each
+ * such type is logged once. Neither do trees holding a serialized object which
+ * was left as it is, since what the YAML parses to then depends on which
+ * classes are registered when it is read, not just on its bytes.
+ */
+public final class BinarySidecar {
+    private static final int MAGIC = 0x43415049; // CAPI
+    private static final byte VERSION = 3;
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte BIG_INTEGER = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte DATE = 7;
+    private static final byte SECTION = 8;
+    private static final byte LIST = 9;
+    private static final byte MAP = 10;
+    private static final byte FLOAT = 11;
+    private static final byte SHORT = 12;
+    private static final byte BYTE = 13;
+    private static final byte CHARACTER = 14;
+    private static final byte BYTES = 15;
+    private static final byte SET = 16;
+    private final AtomicFileWriter writer;
+    private final Logger logger;
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    public BinarySidecar(AtomicFileWriter writer, Logger logger) {
+        this.writer = writer;
+        this.logger = logger;
+    }
+
+    public static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".bin");
+    }
+
+    public <X extends Exception> YamlConfiguration load(File file, ConfigParser<X> parser) throws X {
+        Path path = file.toPath();
+        byte[] contents;
+
+        try {
+            contents = Files.readAllBytes(path);
+        } catch (IOException ex) { // let the parser report it
+            return parser.parse(file);
+        }
+
+        byte[] digest = AtomicFileWriter.digest(contents);
+        Path sidecar = sidecarOf(path);
+        YamlConfiguration tree = read(sidecar, digest);
+
+        if (tree != null) {
+            return tree;
+        }
+
+        YamlConfiguration parsed = new YamlConfiguration();
+
+        try { // decoded as FileConfiguration#load(File) would, without reading the file again
+            parsed.loadFromString(new String(contents, PlatformCharset.reading()));
+        } catch (Exception ex) { // broken file, leave reporting it to the caller's parser
+            return parser.parse(file);
+        }
+
+        try {
+            writer.write(sidecar, encode(parsed, digest), false);
+        } catch (SerializedObjectException ignored) { // parsed again every time, as a class may be registered
+        } catch (IOException ignored) { // no sidecar this time, nothing lost
+        } catch (UnsupportedOperationException ex) {
+            if (unsupported.add(ex.getMessage())) {
+                logger.log(Level.WARNING, "Configs holding a " + ex.getMessage() + " can't be kept as binary " +
+                        "sidecars, such as " + file.getName() + "; they will be parsed from YAML every time");
+            }
+        }
+
+        return parsed;
+    }
+
+    private static YamlConfiguration read(Path sidecar, byte[] digest) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(sidecar)))) {
+            byte[] stamp = new byte[digest.length];
+
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                return null;
+            }
+
+            in.readFully(stamp);
+
+            if (!Arrays.equals(stamp, digest)) {
+                return null;
+            }
+
+            YamlConfiguration tree = new YamlConfiguration();
+            readSection(in, tree);
+            return tree;
+        } catch (IOException | RuntimeException ex) { // missing, truncated or unreadable, parse the YAML again
+            return null;
+        }
+    }
+
+    private static byte[] encode(YamlConfiguration tree, byte[] digest) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.write(digest);
+            writeSection(out, tree);
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private static void writeSection(DataOutputStream out, ConfigurationSection section) throws IOException {
+        Map<String, Object> values = section.getValues(false);
+        out.writeInt(values.size());
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            checkKey(entry.getKey());
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void checkKey(Object key) throws SerializedObjectException {
+        if (ConfigurationSerialization.SERIALIZED_TYPE_KEY.equals(key)) {
+            throw new SerializedObjectException();
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof ConfigurationSection) {
+            out.writeByte(SECTION);
+            writeSection(out, (ConfigurationSection) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            out.writeByte(SET);
+            out.writeInt(set.size());
+
+            for (Object element : set) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                checkKey(entry.getKey());
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new UnsupportedOperationException(value.getClass().getName());
+        }
+    }
+
+    private static void readSection(DataInputStream in, ConfigurationSection section) throws IOException {
+        int size = readLength(in);
+
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte tag = in.readByte();
+
+            if (tag == SECTION) { // sections are created, not set, like YamlConfiguration does
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readTagged(in, tag));
+            }
+        }
+    }
+
+    private static Object readTagged(DataInputStream in, byte tag) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DATE:
+                return new Date(in.readLong());
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case CHARACTER:
+                return in.readChar();
+            case BYTES:
+                byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+                return bytes;
+            case SET:
+                int count = readLength(in);
+                Set<Object> set = new LinkedHashSet<>(count * 4 / 3 + 1);
+
+                for (int i = 0; i < count; i++) {
+                    set.add(readTagged(in, in.readByte()));
+                }
+
+                return set;
+            case LIST:
+                int length = readLength(in);
+                List<Object> list = new ArrayList<>(length);
+
+                for (int i = 0; i < length; i++) {
+                    list.add(readTagged(in, in.readByte()));
+                }
+
+                return list;
+            case MAP:
+                int size = readLength(in);
+                Map<Object, Object> map = new LinkedHashMap<>(size);
+
+                for (int i = 0; i < size; i++) {
+                    map.put(readTagged(in, in.readByte()), readTagged(in, in.readByte()));
+                }
+
+                return map;
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * A length or count, checked against what is left so a corrupt sidecar can't
+     * have huge arrays allocated; every byte, character and element takes at
+     * least one byte
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Length " + length + " is past the end of the sidecar");
+        }
+
+        return length;
+    }
+
+    /*
+     * Thrown while encoding a tree holding a serialized object
+     */
+    @SuppressWarnings("serial") // never serialized
+    private static final class SerializedObjectException extends IOException {
+    }
+}
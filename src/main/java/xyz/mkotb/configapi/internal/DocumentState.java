@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.ConfigurationSection;
+import xyz.mkotb.configapi.comment.CommentHelper;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+import xyz.mkotb.configapi.internal.adapt.ClassBindingPlan;
+import xyz.mkotb.configapi.internal.adapt.FieldSlot;
+import xyz.mkotb.configapi.internal.adapt.StructuralFingerprint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * What was last saved from an object to one file: a fingerprint and the
+ * emitted YAML of each top-level field. Saving the same object again only
+ * adapts and dumps the fields which no longer match their fingerprint and
+ * splices the rest. Fields too large to fingerprint, or whose YAML is too
+ * large to keep, are rewritten on every save.
+ */
+public final class DocumentState {
+    private static final int CHUNK_LIMIT = 1 << 16; // characters
+
+    private WeakReference<Object> instance = new WeakReference<>(null);
+    private ClassBindingPlan plan;
+    private StructuralFingerprint[] prints; // one per slot, then the @Self section
+    private String[] chunks; // header, one per slot, then the @Self keys
+    private long size = -1;
+    private long modified = -1;
+
+    /*
+     * Returns the document to write, or null when nothing changed since the
+     * last save and the file still holds what was written then. Callers must
+     * hold this state's lock from render until written.
+     */
+    public byte[] render(Object object, AdapterHandler handler, ClassBindingPlan plan, Path file) throws IOException {
+        List<FieldSlot> slots = plan.slots();
+        boolean reusable = prints != null && this.plan == plan && instance.get() == object;
+
+        if (!reusable) {
+            String[] header = CommentHelper.extractHeader(object.getClass());
+
+            this.instance = new WeakReference<>(object);
+            this.plan = plan;
+            this.prints = new StructuralFingerprint[slots.size() + 1];
+            this.chunks = new String[slots.size() + 2];
+            chunks[0] = header == null ? "" : renderComments(header);
+        }
+
+        Object[] values = new Object[slots.size()];
+        boolean[] dirty = new boolean[slots.size() + 1];
+        Set<String> present = new HashSet<>();
+        boolean changed = false;
+
+        for (int i = 0; i < slots.size(); i++) {
+            values[i] = slots.get(i).accessor().get(object);
+
+            if (values[i] != null) {
+                present.add(slots.get(i).name());
+            }
+
+            if (prints[i] == null || !prints[i].matches(values[i], handler.namingStrategy())) {
+                dirty[i] = changed = true;
+            }
+        }
+
+        ConfigurationSection self = plan.selfAccessor() == null ? null : plan.selfAccessor().get(object);
+        int selfIndex = slots.size();
+
+        if (changed || prints[selfIndex] == null || !prints[selfIndex].matches(self, handler.namingStrategy())) {
+            dirty[selfIndex] = changed = true;
+        }
+
+        if (!changed && unchanged(file)) {
+            return null;
+        }
+
+        size = -1; // until written, whatever happens below
+        modified = -1;
+
+        Map<String, String[]> comments = CommentHelper.extractComments(object, handler.namingStrategy());
+        YamlEmitter emitter = new YamlEmitter();
+
+        for (int i = 0; i < dirty.length; i++) {
+            if (!dirty[i]) {
+                continue;
+            }
+
+            prints[i] = null; // stays unusable if rendering fails
+
+            if (i == selfIndex) {
+                chunks[i + 1] = renderSelf(emitter, comments, self, present);
+                prints[i] = StructuralFingerprint.of(self, handler.namingStrategy());
+            } else {
+                FieldSlot slot = slots.get(i);
+                chunks[i + 1] = values[i] == null ? "" :
+                        renderEntry(emitter, comments, slot.name(), handler.adaptSlot(plan, i, values[i]));
+                prints[i] = StructuralFingerprint.of(values[i], handler.namingStrategy());
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+        try (Writer out = new OutputStreamWriter(buffer)) {
+            for (String chunk : chunks) {
+                out.write(chunk);
+            }
+        }
+
+        forgetLargeChunks();
+        return buffer.toByteArray();
+    }
+
+    /*
+     * Chunks over the limit aren't kept, their fields are rendered again next time
+     */
+    private void forgetLargeChunks() {
+        for (int i = 1; i < chunks.length; i++) {
+            if (chunks[i] != null && chunks[i].length() > CHUNK_LIMIT) {
+                chunks[i] = null;
+                prints[i - 1] = null;
+            }
+        }
+    }
+
+    /*
+     * Records the file as holding the last rendered document
+     */
+    public void written(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            size = attributes.size();
+            modified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException ex) {
+            size = -1;
+            modified = -1;
+        }
+    }
+
+    private boolean unchanged(Path file) {
+        if (size == -1) {
+            return false;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private String renderSelf(YamlEmitter emitter, Map<String, String[]> comments, ConfigurationSection self,
+                              Set<String> present) throws IOException {
+        if (self == null) {
+            return "";
+        }
+
+        StringWriter writer = new StringWriter();
+
+        for (Map.Entry<String, Object> entry : self.getValues(false).entrySet()) {
+            if (!present.contains(entry.getKey())) {
+                emitter.emitEntry(entry.getKey(), entry.getValue(), comments.get(entry.getKey()), writer);
+            }
+        }
+
+        return writer.toString();
+    }
+
+    private String renderEntry(YamlEmitter emitter, Map<String, String[]> comments, String key,
+                               Object value) throws IOException {
+        StringWriter writer = new StringWriter();
+        emitter.emitEntry(key, value, comments.get(key), writer);
+        return writer.toString();
+    }
+
+    private static String renderComments(String[] comments) throws IOException {
+        StringWriter writer = new StringWriter();
+        CommentHelper.encodeComments(comments, writer);
+        return writer.toString();
+    }
+
+    /*
+     * The states of the most recently saved files, so saving many distinct
+     * files doesn't keep every one of their documents around
+     */
+    public static final class Cache {
+        private final Lru states;
+
+        public Cache(int capacity) {
+            this.states = new Lru(capacity);
+        }
+
+        public DocumentState get(Path path) {
+            synchronized (states) {
+                return states.computeIfAbsent(path, (p) -> new DocumentState());
+            }
+        }
+
+        /*
+         * Forgets the file, after it was written other than through its state
+         */
+        public void invalidate(Path path) {
+            synchronized (states) {
+                states.remove(path);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    private static final class Lru extends LinkedHashMap<Path, DocumentState> {
+        private final int capacity;
+
+        private Lru(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, DocumentState> eldest) {
+            return size() > capacity;
+        }
+    }
+}
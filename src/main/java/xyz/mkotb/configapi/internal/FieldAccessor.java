@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/*
+ * Reads and writes a single field. Accessors are built once per field and
+ * backed by method handles where possible, falling back to plain reflection.
+ * The primitive variants avoid boxing when the field's type matches.
+ */
+public abstract class FieldAccessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private final Field field;
+
+    FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    public static FieldAccessor of(Field field) {
+        field.setAccessible(true);
+        int modifiers = field.getModifiers();
+
+        if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+            return new ReflectiveFieldAccessor(field); // constants are left to reflection, which refuses to write them
+        }
+
+        try {
+            return new MethodHandleFieldAccessor(field, LOOKUP.unreflectGetter(field), LOOKUP.unreflectSetter(field));
+        } catch (IllegalAccessException | RuntimeException ex) {
+            return new ReflectiveFieldAccessor(field);
+        }
+    }
+
+    public Field field() {
+        return field;
+    }
+
+    public abstract <T> T get(Object instance);
+
+    public abstract boolean set(Object instance, Object value);
+
+    public int getInt(Object instance) {
+        return this.<Integer>get(instance);
+    }
+
+    public long getLong(Object instance) {
+        return this.<Long>get(instance);
+    }
+
+    public double getDouble(Object instance) {
+        return this.<Double>get(instance);
+    }
+
+    public boolean getBoolean(Object instance) {
+        return this.<Boolean>get(instance);
+    }
+
+    public boolean setInt(Object instance, int value) {
+        return set(instance, value);
+    }
+
+    public boolean setLong(Object instance, long value) {
+        return set(instance, value);
+    }
+
+    public boolean setDouble(Object instance, double value) {
+        return set(instance, value);
+    }
+
+    public boolean setBoolean(Object instance, boolean value) {
+        return set(instance, value);
+    }
+}
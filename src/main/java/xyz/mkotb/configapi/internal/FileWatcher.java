@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/*
+ * Watches individual files through their directories' WatchService keys and
+ * reports each changed file once its events have been quiet for the debounce
+ * window, so an editor's truncate-write-rename burst becomes one change
+ */
+public final class FileWatcher implements Closeable {
+    private final WatchService service;
+    private final Map<Path, WatchKey> directories = new ConcurrentHashMap<>();
+    private final Set<Path> files = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Long> pending = new HashMap<>(); // watcher thread only
+    private final Consumer<Path> onChange;
+    private final Predicate<Path> ignore;
+    private final Thread thread;
+    private volatile long debounceMillis;
+    private volatile boolean closed;
+
+    /*
+     * Changes to files matching ignore, e.g. ones we just wrote ourselves, are dropped
+     */
+    public FileWatcher(Consumer<Path> onChange, Predicate<Path> ignore, long debounceMillis) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.onChange = onChange;
+        this.ignore = ignore;
+        this.debounceMillis = debounceMillis;
+        this.thread = new DaemonThreadFactory("ConfigAPI Watcher").newThread(this::run);
+        thread.start();
+    }
+
+    public void watch(Path file) throws IOException {
+        Path target = file.toAbsolutePath().normalize();
+        Path directory = target.getParent();
+
+        synchronized (directories) {
+            if (!directories.containsKey(directory)) {
+                directories.put(directory, directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY));
+            }
+
+            files.add(target);
+        }
+    }
+
+    /*
+     * Cancels the directory's key once none of its files are watched any more
+     */
+    public void unwatch(Path file) {
+        Path target = file.toAbsolutePath().normalize();
+        Path directory = target.getParent();
+
+        synchronized (directories) {
+            if (!files.remove(target)) {
+                return;
+            }
+
+            for (Path other : files) {
+                if (other.getParent().equals(directory)) {
+                    return;
+                }
+            }
+
+            WatchKey key = directories.remove(directory);
+
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+
+    public void setDebounce(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        service.close();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                WatchKey key = pending.isEmpty() ? service.take() : service.poll(nextDeadline(), TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    collect(key);
+                }
+
+                fireQuiet();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        long now = System.currentTimeMillis();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // lost track, recheck everything in here
+                for (Path file : files) {
+                    if (file.getParent().equals(directory)) {
+                        pending.put(file, now);
+                    }
+                }
+
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+
+            if (files.contains(file)) {
+                pending.put(file, now);
+            }
+        }
+
+        key.reset();
+    }
+
+    private long nextDeadline() {
+        long now = System.currentTimeMillis();
+        long wait = debounceMillis;
+
+        for (long last : pending.values()) {
+            wait = Math.min(wait, last + debounceMillis - now);
+        }
+
+        return Math.max(1, wait);
+    }
+
+    private void fireQuiet() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+
+            if (now - entry.getValue() < debounceMillis) {
+                continue;
+            }
+
+            iterator.remove();
+            Path file = entry.getKey();
+
+            if (files.contains(file) && !ignore.test(file)) {
+                onChange.accept(file);
+            }
+        }
+    }
+}
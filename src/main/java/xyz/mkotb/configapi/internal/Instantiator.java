@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import sun.reflect.ReflectionFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+/*
+ * Creates instances of a single class. Instantiators are built once per class
+ * and cached, so the constructor lookup or synthesis is only paid for once. The
+ * caches are ClassValues so they don't keep plugin class loaders alive.
+ */
+public abstract class Instantiator<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+    private static final ClassValue<Instantiator<?>> CONSTRUCTING = new ClassValue<Instantiator<?>>() {
+        @Override
+        protected Instantiator<?> computeValue(Class<?> type) {
+            return constructing(type);
+        }
+    };
+    private static final ClassValue<Instantiator<?>> WITHOUT_INIT = new ClassValue<Instantiator<?>>() {
+        @Override
+        protected Instantiator<?> computeValue(Class<?> type) {
+            return withoutInitFor(type);
+        }
+    };
+
+    /*
+     * Calls the class's accessible no-args constructor through a method handle.
+     * Instantiators of classes without one create null.
+     */
+    public static <T> Instantiator<T> of(Class<T> type) {
+        return (Instantiator<T>) CONSTRUCTING.get(type);
+    }
+
+    /*
+     * Allocates instances through a serialization constructor, which runs no
+     * constructor of the class itself. The class must implement java.io.Serializable.
+     */
+    public static <T> Instantiator<T> withoutInit(Class<T> type) {
+        return (Instantiator<T>) WITHOUT_INIT.get(type);
+    }
+
+    public abstract T create();
+
+    private static Instantiator<?> constructing(Class<?> type) {
+        MethodHandle constructor;
+
+        if (Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+            return new Missing<>();
+        }
+
+        try {
+            constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class)).asType(FACTORY_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return new Missing<>();
+        }
+
+        return new Constructing<>(type, constructor);
+    }
+
+    private static Instantiator<?> withoutInitFor(Class<?> type) {
+        try {
+            Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                    .newConstructorForSerialization(type, Object.class.getDeclaredConstructor());
+            return new WithoutInit<>(type, constructor);
+        } catch (NoSuchMethodException ex) { // Object always has one
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class Constructing<T> extends Instantiator<T> {
+        private final Class<T> type;
+        private final MethodHandle constructor;
+
+        Constructing(Class<T> type, MethodHandle constructor) {
+            this.type = type;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public T create() {
+            try {
+                return type.cast((Object) constructor.invokeExact());
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Cannot create object", ex);
+            }
+        }
+    }
+
+    private static final class WithoutInit<T> extends Instantiator<T> {
+        private final Class<T> type;
+        private final Constructor<?> constructor;
+
+        WithoutInit(Class<T> type, Constructor<?> constructor) {
+            this.type = type;
+            this.constructor = constructor;
+        }
+
+        @Override
+        public T create() {
+            try {
+                return type.cast(constructor.newInstance());
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException("Cannot create object", ex.getCause());
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Cannot create object", ex);
+            }
+        }
+    }
+
+    private static final class Missing<T> extends Instantiator<T> {
+        @Override
+        public T create() {
+            return null;
+        }
+    }
+}
@@ -15,14 +15,13 @@
  */
 package xyz.mkotb.configapi.internal;
 
-import sun.reflect.ReflectionFactory;
 import xyz.mkotb.configapi.internal.naming.NamingStrategies;
 import xyz.mkotb.configapi.internal.naming.NamingStrategy;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,7 +36,49 @@ public final class InternalsHelper {
         Type genericType = field.getGenericType();
 
         if (genericType instanceof ParameterizedType) {
-            return (Class) ((ParameterizedType) genericType).getActualTypeArguments()[index];
+            return rawClassOf(((ParameterizedType) genericType).getActualTypeArguments()[index]);
+        }
+
+        return Object.class;
+    }
+
+    /*
+     * The element or value type of the field's own type argument, such as Foo
+     * for a List<List<Foo>> or a Map<String, Set<Foo>>, or null if it has none
+     */
+    public static Class argumentOf(Field field, int index) {
+        Type genericType = field.getGenericType();
+
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+
+        Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[index];
+
+        if (!(argument instanceof ParameterizedType)) {
+            return null;
+        }
+
+        Type[] arguments = ((ParameterizedType) argument).getActualTypeArguments();
+        Class<?> rawClass = rawClassOf(argument);
+
+        if (Map.class.isAssignableFrom(rawClass)) {
+            return rawClassOf(arguments[1]);
+        }
+
+        return Collection.class.isAssignableFrom(rawClass) ? rawClassOf(arguments[0]) : null;
+    }
+
+    /*
+     * Wildcards and type variables are bound as plain objects
+     */
+    private static Class rawClassOf(Type type) {
+        if (type instanceof Class) {
+            return (Class) type;
+        }
+
+        if (type instanceof ParameterizedType) {
+            return (Class) ((ParameterizedType) type).getRawType();
         }
 
         return Object.class;
@@ -48,26 +89,15 @@ public final class InternalsHelper {
      * clazz must implement java.io.Serializable
      */
     public static <T> T newInstanceWithoutInit(Class<T> clazz) {
-        try {
-            ReflectionFactory rf =
-                    ReflectionFactory.getReflectionFactory();
-            Constructor objDef = Object.class.getDeclaredConstructor();
-            Constructor intConstr = rf.newConstructorForSerialization(clazz, objDef);
-
-            return clazz.cast(intConstr.newInstance());
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new IllegalStateException("Cannot create object", e);
-        }
+        return Instantiator.withoutInit(clazz).create();
     }
 
+    /*
+     * Creates an instance through the class's accessible no-args constructor,
+     * or returns null if it has none
+     */
     public static <T> T newInstance(Class<T> classOf) {
-        try {
-            return classOf.newInstance();
-        } catch (InstantiationException | IllegalAccessException ex) {
-            return null;
-        }
+        return Instantiator.of(classOf).create();
     }
 
     public static <T> Map<String, Object> mapFieldsOf(T obj) {
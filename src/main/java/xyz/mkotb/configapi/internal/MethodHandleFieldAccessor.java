@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+final class MethodHandleFieldAccessor extends FieldAccessor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    // typed to the field's own primitive type, e.g. (Object)int for an int field
+    private final MethodHandle primitiveGetter;
+    private final MethodHandle primitiveSetter;
+
+    MethodHandleFieldAccessor(Field field, MethodHandle getter, MethodHandle setter) {
+        super(field);
+        Class<?> type = field.getType();
+
+        if (Modifier.isStatic(field.getModifiers())) {
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            setter = MethodHandles.dropArguments(setter, 0, Object.class);
+        }
+
+        this.getter = getter.asType(GETTER_TYPE);
+        this.setter = setter.asType(SETTER_TYPE);
+
+        if (type == int.class || type == long.class || type == double.class || type == boolean.class) {
+            this.primitiveGetter = getter.asType(MethodType.methodType(type, Object.class));
+            this.primitiveSetter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+        } else {
+            this.primitiveGetter = null;
+            this.primitiveSetter = null;
+        }
+    }
+
+    @Override
+    public <T> T get(Object instance) {
+        try {
+            return (T) (Object) getter.invokeExact(instance);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean set(Object instance, Object value) {
+        try {
+            setter.invokeExact(instance, value);
+            return true;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getInt(Object instance) {
+        if (field().getType() != int.class) {
+            return super.getInt(instance);
+        }
+
+        try {
+            return (int) primitiveGetter.invokeExact(instance);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return 0;
+        }
+    }
+
+    @Override
+    public long getLong(Object instance) {
+        if (field().getType() != long.class) {
+            return super.getLong(instance);
+        }
+
+        try {
+            return (long) primitiveGetter.invokeExact(instance);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public double getDouble(Object instance) {
+        if (field().getType() != double.class) {
+            return super.getDouble(instance);
+        }
+
+        try {
+            return (double) primitiveGetter.invokeExact(instance);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return 0D;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(Object instance) {
+        if (field().getType() != boolean.class) {
+            return super.getBoolean(instance);
+        }
+
+        try {
+            return (boolean) primitiveGetter.invokeExact(instance);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean setInt(Object instance, int value) {
+        if (field().getType() != int.class) {
+            return super.setInt(instance, value);
+        }
+
+        try {
+            primitiveSetter.invokeExact(instance, value);
+            return true;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean setLong(Object instance, long value) {
+        if (field().getType() != long.class) {
+            return super.setLong(instance, value);
+        }
+
+        try {
+            primitiveSetter.invokeExact(instance, value);
+            return true;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean setDouble(Object instance, double value) {
+        if (field().getType() != double.class) {
+            return super.setDouble(instance, value);
+        }
+
+        try {
+            primitiveSetter.invokeExact(instance, value);
+            return true;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean setBoolean(Object instance, boolean value) {
+        if (field().getType() != boolean.class) {
+            return super.setBoolean(instance, value);
+        }
+
+        try {
+            primitiveSetter.invokeExact(instance, value);
+            return true;
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import xyz.mkotb.configapi.CacheStats;
+import xyz.mkotb.configapi.internal.adapt.impl.bukkit.ConfigurationSerializableHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * LRU cache of parsed config trees, keyed by path and validated against the
+ * file's size and modification time. The cached tree is never handed out;
+ * every load gets its own deep copy, so callers can bind or mutate it freely.
+ * Files whose tree can't be copied faithfully are parsed every time instead.
+ */
+public final class ParsedConfigCache {
+    private final int capacity;
+    private final LruMap entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ParsedConfigCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LruMap(capacity, evictions);
+    }
+
+    public <X extends Exception> YamlConfiguration load(File file, ConfigParser<X> parser) throws X {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException ex) { // let the parser report it
+            return parser.parse(file);
+        }
+
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.get(path);
+        }
+
+        boolean current = entry != null && entry.size == size && entry.modified == modified;
+
+        if (current && entry.tree != null) {
+            YamlConfiguration copy = copy(entry.tree);
+
+            if (copy != null) {
+                hits.incrementAndGet();
+                return copy;
+            }
+        }
+
+        misses.incrementAndGet();
+        YamlConfiguration parsed = parser.parse(file); // stamped before parsing, so a concurrent edit misses next time
+
+        if (current && entry.tree == null) { // already known not to copy faithfully
+            return parsed;
+        }
+
+        YamlConfiguration copy = copy(parsed);
+
+        synchronized (entries) { // an uncopyable tree is remembered without its tree, and parsed every time
+            entries.put(path, new Entry(size, modified, copy == null ? null : parsed));
+        }
+
+        return copy == null ? parsed : copy;
+    }
+
+    public void invalidate(Path path) {
+        synchronized (entries) {
+            entries.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size, capacity);
+    }
+
+    /*
+     * A deep copy of the tree, or null if a ConfigurationSerializable value in it
+     * could not be rebuilt from its own serialized form
+     */
+    private static YamlConfiguration copy(YamlConfiguration tree) {
+        YamlConfiguration copy = new YamlConfiguration();
+
+        try {
+            copySection(tree, copy);
+        } catch (UncopyableException ex) {
+            return null;
+        }
+
+        return copy;
+    }
+
+    private static void copySection(ConfigurationSection from, ConfigurationSection to) {
+        for (Map.Entry<String, Object> value : from.getValues(false).entrySet()) {
+            if (value.getValue() instanceof ConfigurationSection) {
+                copySection((ConfigurationSection) value.getValue(), to.createSection(value.getKey()));
+            } else {
+                to.set(value.getKey(), copyValue(value.getValue()));
+            }
+        }
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+
+            return copy;
+        }
+
+        if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        }
+
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+
+        if (value instanceof ConfigurationSerializable) { // parsed straight into objects, rebuild them
+            Object copy = ConfigurationSerializableHelper.deserialize(
+                    copyMap(((ConfigurationSerializable) value).serialize()), value.getClass());
+
+            if (copy == null) {
+                throw UncopyableException.INSTANCE;
+            }
+
+            return copy;
+        }
+
+        return value;
+    }
+
+    private static <K> Map<K, Object> copyMap(Map<K, ?> map) {
+        Map<K, Object> copy = new LinkedHashMap<>(map.size());
+
+        for (Map.Entry<K, ?> entry : map.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("serial") // never serialized
+    private static final class LruMap extends LinkedHashMap<Path, Entry> {
+        private final int capacity;
+        private final AtomicLong evictions;
+
+        private LruMap(int capacity, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    @SuppressWarnings("serial") // thrown and caught within this class only
+    private static final class UncopyableException extends RuntimeException {
+        private static final UncopyableException INSTANCE = new UncopyableException();
+
+        private UncopyableException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final YamlConfiguration tree;
+
+        private Entry(long size, long modified, YamlConfiguration tree) {
+            this.size = size;
+            this.modified = modified;
+            this.tree = tree;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * The charset choices FileConfiguration makes for the platform, worked out the
+ * same way. Bukkit only exposes its flags to subclasses, and deprecates them.
+ */
+public final class PlatformCharset {
+    private static final String TEST_STRING = " !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ" +
+            "[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~\r\n";
+    private static final boolean UTF8_OVERRIDE;
+    private static final boolean UTF_BIG;
+    private static final boolean SYSTEM_UTF;
+
+    static {
+        Charset defaultCharset = Charset.defaultCharset();
+        String result = new String(TEST_STRING.getBytes(StandardCharsets.US_ASCII), defaultCharset);
+        boolean trueUtf = defaultCharset.name().contains("UTF");
+
+        UTF8_OVERRIDE = !TEST_STRING.equals(result) || defaultCharset.equals(StandardCharsets.US_ASCII);
+        SYSTEM_UTF = trueUtf || UTF8_OVERRIDE;
+        UTF_BIG = trueUtf && UTF8_OVERRIDE;
+    }
+
+    private PlatformCharset() {
+    }
+
+    /*
+     * The charset FileConfiguration#load(File) reads files with
+     */
+    public static Charset reading() {
+        return UTF8_OVERRIDE && !UTF_BIG ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+    }
+
+    /*
+     * Whether YamlConfiguration dumps unicode characters as they are rather than escaped
+     */
+    public static boolean allowsUnicode() {
+        return SYSTEM_UTF;
+    }
+}
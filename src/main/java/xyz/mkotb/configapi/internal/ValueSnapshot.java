@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Deep copies adapted values so they can be dumped on another thread while the
+ * caller carries on changing the objects they came from. Sections become maps
+ * and ConfigurationSerializable values are serialized up front, into the same
+ * maps YamlRepresenter would build for them, so the dumped output is unchanged.
+ */
+public final class ValueSnapshot {
+    private ValueSnapshot() {
+    }
+
+    public static Map<String, Object> copyOf(Map<String, ?> values) {
+        Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, values.size() * 4 / 3 + 1));
+
+        values.forEach((key, value) -> copy.put(key, copy(value)));
+        return copy;
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof ConfigurationSection) {
+            return copyOf(((ConfigurationSection) value).getValues(false));
+        }
+
+        if (value instanceof ConfigurationSerializable) {
+            ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+            Map<String, Object> values = new LinkedHashMap<>();
+
+            values.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY,
+                    ConfigurationSerialization.getAlias(serializable.getClass()));
+            values.putAll(serializable.serialize());
+            return copyOf(values);
+        }
+
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+
+            ((Map<?, ?>) value).forEach((key, element) -> copy.put(key, copy(element)));
+            return copy;
+        }
+
+        if (value instanceof Collection) {
+            Collection<?> elements = (Collection<?>) value;
+            List<Object> copy = new ArrayList<>(elements.size());
+
+            for (Object element : elements) {
+                copy.add(copy(element));
+            }
+
+            return copy;
+        }
+
+        return value; // strings, numbers, booleans and the like
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Runs file writes on a single background thread, so writes to a file land in
+ * the order they were submitted. A write submitted while an earlier one for the
+ * same file is still waiting out its window replaces it instead of queueing.
+ */
+public final class WriteBehindQueue {
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+    // the write running for each file, from when it is taken out of its window until it finishes
+    private final Map<Path, CompletableFuture<Void>> running = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor executor;
+
+    public WriteBehindQueue() {
+        executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("ConfigAPI I/O"));
+
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public CompletableFuture<Void> submit(Path path, Runnable write, long windowMillis) {
+        Path target = path.toAbsolutePath().normalize();
+        Pending[] created = new Pending[1];
+        Pending entry = pending.compute(target, (key, current) -> {
+            if (current != null && current.replace(write)) {
+                return current;
+            }
+
+            return created[0] = new Pending(key, write);
+        });
+
+        if (created[0] != null) {
+            CompletableFuture<Void> future = entry.future;
+
+            inFlight.add(future);
+            future.whenComplete((result, ex) -> inFlight.remove(future));
+            executor.schedule(entry::run, Math.max(0, windowMillis), TimeUnit.MILLISECONDS);
+        }
+
+        return entry.future;
+    }
+
+    /*
+     * Called before the file is written some other way, so no write submitted
+     * earlier can land after it. A write still waiting out its window is dropped
+     * and its future completed, as the caller's write supersedes it; one already
+     * running is waited for.
+     */
+    public void supersede(Path path) {
+        Path target = path.toAbsolutePath().normalize();
+        Pending entry = pending.get(target);
+
+        if (entry != null) {
+            entry.cancel();
+        }
+
+        CompletableFuture<Void> write = running.get(target);
+
+        if (write != null) {
+            try {
+                write.join();
+            } catch (CompletionException ignored) { // reported through the write's own future
+            }
+        }
+    }
+
+    /*
+     * Runs every write still waiting out its window and waits for all writes
+     * to finish. Returns false if the deadline passed first.
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        for (Pending entry : pending.values()) {
+            executor.execute(entry::run);
+        }
+
+        CompletableFuture<?>[] futures = inFlight.toArray(new CompletableFuture<?>[0]);
+
+        try {
+            CompletableFuture.allOf(futures).get(timeout, unit);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (ExecutionException ignored) { // failures are reported through each write's future
+        }
+
+        return true;
+    }
+
+    private final class Pending {
+        private final Path path;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private Runnable write;
+        private boolean started;
+
+        Pending(Path path, Runnable write) {
+            this.path = path;
+            this.write = write;
+        }
+
+        void cancel() {
+            synchronized (this) {
+                if (started) {
+                    return;
+                }
+
+                started = true;
+            }
+
+            pending.remove(path, this);
+            future.complete(null);
+        }
+
+        synchronized boolean replace(Runnable write) {
+            if (started) {
+                return false;
+            }
+
+            this.write = write;
+            return true;
+        }
+
+        void run() {
+            Runnable write;
+
+            synchronized (this) {
+                if (started) {
+                    return;
+                }
+
+                started = true;
+                write = this.write;
+                running.put(path, future); // before leaving pending, so supersede always sees one of them
+            }
+
+            pending.remove(path, this);
+
+            try {
+                write.run();
+                future.complete(null);
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                running.remove(path, future);
+            }
+        }
+    }
+}
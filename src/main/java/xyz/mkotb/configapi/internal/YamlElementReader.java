@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.file.YamlConstructor;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+import xyz.mkotb.configapi.ex.InvalidConfigurationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+ * Walks SnakeYAML's event stream down to the list or section at a path and
+ * constructs its elements one at a time, so only the element being read is
+ * ever in memory. Elements come out as YamlConfiguration would hold them
+ * before sectioning: scalars, lists, maps and deserialized objects.
+ *
+ * Anchors are only remembered once they are reached, so aliases to anchors
+ * outside the list or section being read can't be resolved.
+ */
+public final class YamlElementReader implements Iterator<Object>, Closeable {
+    private final Reader source;
+    private final Parser parser;
+    private final Resolver resolver = new Resolver();
+    private final ElementConstructor constructor = new ElementConstructor();
+    private final Map<String, Node> anchors = new HashMap<>();
+    private final String path;
+    private boolean mapping;
+    private boolean done;
+
+    public YamlElementReader(Reader source, String[] path) {
+        this.source = source;
+        this.parser = new ParserImpl(new StreamReader(source));
+        this.path = String.join(".", path);
+        this.done = !seek(path);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!done && (parser.checkEvent(Event.ID.MappingEnd) || parser.checkEvent(Event.ID.SequenceEnd))) {
+            done = true;
+            closeQuietly();
+        }
+
+        return !done;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        if (mapping) {
+            skip(); // the key, sections are read as their values
+        }
+
+        return constructor.construct(compose());
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        source.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            source.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*
+     * Consumes events up to and including the start of the collection at path,
+     * returning false when there is nothing to read there
+     */
+    private boolean seek(String[] path) {
+        parser.getEvent(); // stream start
+
+        if (!parser.checkEvent(Event.ID.DocumentStart)) {
+            return false;
+        }
+
+        parser.getEvent();
+
+        for (String segment : path) {
+            if (!parser.checkEvent(Event.ID.MappingStart)) {
+                return false;
+            }
+
+            parser.getEvent();
+
+            if (!seekKey(segment)) {
+                return false;
+            }
+        }
+
+        Event event = parser.peekEvent();
+
+        if (event.is(Event.ID.Scalar) && resolver.resolve(NodeId.scalar, ((ScalarEvent) event).getValue(),
+                ((ScalarEvent) event).getImplicit().canOmitTagInPlainScalar()).equals(Tag.NULL)) {
+            return false;
+        }
+
+        if (!event.is(Event.ID.MappingStart) && !event.is(Event.ID.SequenceStart)) {
+            throw new InvalidConfigurationException("Value at " + (path.length == 0 ? "the root" : this.path) +
+                    " is not a list or section");
+        }
+
+        mapping = event.is(Event.ID.MappingStart);
+        parser.getEvent();
+        return true;
+    }
+
+    /*
+     * Skips the entries of the mapping being read up to the value under key
+     */
+    private boolean seekKey(String key) {
+        while (!parser.checkEvent(Event.ID.MappingEnd)) {
+            Event event = parser.peekEvent();
+
+            if (event.is(Event.ID.Scalar) && key.equals(((ScalarEvent) event).getValue())) {
+                parser.getEvent();
+                return true;
+            }
+
+            skip();
+            skip();
+        }
+
+        return false;
+    }
+
+    private void skip() {
+        int depth = 0;
+
+        do {
+            Event event = parser.getEvent();
+
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    // mirrors org.yaml.snakeyaml.composer.Composer, which can't start mid-document
+    private Node compose() {
+        Event event = parser.getEvent();
+
+        if (event.is(Event.ID.Alias)) {
+            String anchor = ((AliasEvent) event).getAnchor();
+            Node node = anchors.get(anchor);
+
+            if (node == null) {
+                throw new InvalidConfigurationException("Alias " + anchor + " in " + path +
+                        " refers to an anchor outside of it");
+            }
+
+            return node;
+        }
+
+        String anchor = ((NodeEvent) event).getAnchor();
+        Node node;
+
+        if (event.is(Event.ID.Scalar)) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            node = new ScalarNode(tag(scalar.getTag(), NodeId.scalar, scalar.getValue(),
+                    scalar.getImplicit().canOmitTagInPlainScalar()), scalar.getValue(), scalar.getStartMark(),
+                    scalar.getEndMark(), scalar.getStyle());
+            remember(anchor, node);
+        } else if (event.is(Event.ID.SequenceStart)) {
+            CollectionStartEvent start = (CollectionStartEvent) event;
+            List<Node> children = new ArrayList<>();
+            node = new SequenceNode(tag(start.getTag(), NodeId.sequence, null, start.getImplicit()), children,
+                    start.getFlowStyle());
+            remember(anchor, node);
+
+            while (!parser.checkEvent(Event.ID.SequenceEnd)) {
+                children.add(compose());
+            }
+
+            parser.getEvent();
+        } else {
+            CollectionStartEvent start = (CollectionStartEvent) event;
+            List<NodeTuple> children = new ArrayList<>();
+            node = new MappingNode(tag(start.getTag(), NodeId.mapping, null, start.getImplicit()), children,
+                    start.getFlowStyle());
+            remember(anchor, node);
+
+            while (!parser.checkEvent(Event.ID.MappingEnd)) {
+                Node key = compose();
+                children.add(new NodeTuple(key, compose()));
+            }
+
+            parser.getEvent();
+        }
+
+        return node;
+    }
+
+    private Tag tag(String tag, NodeId kind, String value, boolean implicit) {
+        if (tag == null || tag.equals("!")) {
+            return resolver.resolve(kind, value, implicit);
+        }
+
+        return new Tag(tag);
+    }
+
+    private void remember(String anchor, Node node) {
+        if (anchor != null) {
+            anchors.put(anchor, node);
+        }
+    }
+
+    private static final class ElementConstructor extends YamlConstructor {
+        Object construct(Node node) {
+            return constructDocument(node);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.bukkit.configuration.file.YamlRepresenter;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import xyz.mkotb.configapi.comment.CommentHelper;
+import xyz.mkotb.configapi.ex.InternalProcessingException;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Writes adapted top-level values straight to a writer with one dumper,
+ * producing the same output as dumping each key through its own YamlConfiguration
+ */
+public final class YamlEmitter {
+    private final Yaml yaml;
+    private final String lineBreak;
+    private final Map<String, Object> entry = new LinkedHashMap<>(2);
+
+    public YamlEmitter() {
+        DumperOptions options = new DumperOptions();
+        YamlRepresenter representer = new YamlRepresenter();
+
+        options.setIndent(2);
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setAllowUnicode(PlatformCharset.allowsUnicode());
+        representer.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        this.yaml = new Yaml(new YamlConstructor(), representer, options);
+        this.lineBreak = options.getLineBreak().getString();
+    }
+
+    public void emit(String[] header, Map<String, Object> values, Map<String, String[]> comments,
+                     Writer writer) throws IOException {
+        if (header != null) {
+            CommentHelper.encodeComments(header, writer);
+        }
+
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            emitEntry(value.getKey(), value.getValue(), comments.get(value.getKey()), writer);
+        }
+    }
+
+    public void emitEntry(String key, Object value, String[] comment, Writer writer) throws IOException {
+        if (comment != null) {
+            CommentHelper.encodeComments(comment, writer);
+        }
+
+        emitValue(key, value, writer);
+    }
+
+    /*
+     * Writes elements as the list at path, adapting and dumping one element at a
+     * time, the way CollectionAdapter writes a collection of type: as a section
+     * keyed by position when type isn't serializable as it is, otherwise as a list
+     */
+    public void emitSequence(String[] path, Iterator<?> elements, Class<?> type, AdapterHandler handler,
+                             Writer writer) throws IOException {
+        boolean keyed = !AdapterHandler.isSerializable(type) && !type.isPrimitive();
+        Class<?> outClass = AdapterHandler.outClass(type);
+        String listIndent = indent(Math.max(0, path.length - 1));
+        boolean open = false; // whether the value under the last key has been started
+        int index = 0;
+
+        for (int i = 0; i < path.length; i++) {
+            writer.write(indent(i));
+            writer.write(scalar(path[i]));
+            writer.write(':');
+
+            if (i < path.length - 1) {
+                writer.write(lineBreak);
+            }
+        }
+
+        while (elements.hasNext()) {
+            Object element = elements.next();
+            Object value = element == null ? null : handler.adaptOut(element, outClass);
+            index++;
+
+            if (keyed && value == null) { // as a section drops null values
+                continue;
+            }
+
+            if (!open && path.length > 0) {
+                writer.write(lineBreak);
+            }
+
+            open = true;
+
+            if (keyed) {
+                emitIndented(Collections.singletonMap(String.valueOf(index), value), indent(path.length), writer);
+            } else {
+                emitIndented(Collections.singletonList(value), listIndent, writer);
+            }
+        }
+
+        if (!open) {
+            writer.write(path.length == 0 ? "" : " ");
+            writer.write(keyed ? "{}" : "[]");
+            writer.write(lineBreak);
+        }
+    }
+
+    private void emitIndented(Object value, String indent, Writer writer) throws IOException {
+        if (indent.isEmpty()) {
+            yaml.dump(value, writer);
+            return;
+        }
+
+        String dumped = yaml.dump(value);
+        int start = 0;
+
+        while (start < dumped.length()) {
+            int end = dumped.indexOf(lineBreak, start);
+            end = end == -1 ? dumped.length() : end + lineBreak.length();
+
+            if (end - start > lineBreak.length()) { // blank lines stay blank
+                writer.write(indent);
+            }
+
+            writer.write(dumped, start, end - start);
+            start = end;
+        }
+    }
+
+    private String scalar(String key) {
+        String dumped = yaml.dump(key);
+        return dumped.substring(0, dumped.length() - lineBreak.length());
+    }
+
+    private static String indent(int depth) {
+        char[] spaces = new char[depth * 2];
+        Arrays.fill(spaces, ' ');
+        return new String(spaces);
+    }
+
+    private void emitValue(String key, Object value, Writer writer) throws IOException {
+        if (value == null) { // YamlConfiguration#set drops the key
+            return;
+        }
+
+        if (key.indexOf('.') != -1) { // path separators nest the key, leave that to bukkit
+            YamlConfiguration configuration = new YamlConfiguration();
+
+            configuration.set(key, value);
+            writer.write(configuration.saveToString());
+            return;
+        }
+
+        entry.clear();
+        entry.put(key, value);
+        yaml.dump(entry, writer);
+    }
+}
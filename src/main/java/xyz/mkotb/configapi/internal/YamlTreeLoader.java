@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+
+/*
+ * Parses a config file into SnakeYAML's own map tree, reading and constructing
+ * it as YamlConfiguration#load does but leaving out the copy into sections
+ */
+public final class YamlTreeLoader {
+    private YamlTreeLoader() {
+    }
+
+    public static Map<?, ?> load(File file) throws IOException, InvalidConfigurationException {
+        Object root;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), PlatformCharset.reading())) {
+            root = new Yaml(new YamlConstructor()).load(reader);
+        } catch (YAMLException ex) {
+            throw new InvalidConfigurationException(ex);
+        }
+
+        if (root == null) {
+            return Collections.emptyMap();
+        }
+
+        if (!(root instanceof Map)) {
+            throw new InvalidConfigurationException("Top level is not a Map.");
+        }
+
+        return (Map<?, ?>) root;
+    }
+}
@@ -17,15 +17,14 @@ package xyz.mkotb.configapi.internal.adapt;
 
 import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.enchantment.Enchantment;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.MemorySection;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
-import xyz.mkotb.configapi.Coloured;
-import xyz.mkotb.configapi.RequiredField;
-import xyz.mkotb.configapi.comment.Self;
+import org.bukkit.enchantments.Enchantment;
 import xyz.mkotb.configapi.ex.ClassStructureException;
 import xyz.mkotb.configapi.ex.InvalidConfigurationException;
+import xyz.mkotb.configapi.internal.FieldAccessor;
 import xyz.mkotb.configapi.internal.InternalsHelper;
 import xyz.mkotb.configapi.internal.SerializableMemorySection;
 import xyz.mkotb.configapi.internal.adapt.impl.*;
@@ -33,16 +32,19 @@ import xyz.mkotb.configapi.internal.adapt.impl.atomic.*;
 import xyz.mkotb.configapi.internal.adapt.impl.bukkit.*;
 import xyz.mkotb.configapi.internal.naming.NamingStrategy;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.lang.reflect.Array;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
 
 public final class AdapterHandler {
     private static final Map<Class<?>, Class<?>> PRIMITIVE_BOXES = new ConcurrentHashMap<>();
     private static final Set<Class<?>> FILTER_CLASSES = new HashSet<>();
     private static final Map<Class<?>, ObjectAdapter<?, ?>> ADAPTERS = new ConcurrentHashMap<>();
+    // registerAdapter only replaces existing adapters, so a class's kind never changes once computed
+    private static final ClassValue<ClassKind> KINDS = newKinds();
+    private static final ClassValue<Boolean> FILTERED = newFiltered();
 
     static {
         PRIMITIVE_BOXES.put(boolean.class, Boolean.class);
@@ -77,23 +79,168 @@ public final class AdapterHandler {
     }
 
     private final NamingStrategy namingStrategy;
+    private final boolean compiled;
+    private final BiConsumer<Class<?>, String> unknownKeys;
+    // generated adapters keep the handler they are created with, so are cached per handler
+    private final Map<Class<?>, ObjectAdapter<?, ?>> generated = new ConcurrentHashMap<>();
 
-    private AdapterHandler(NamingStrategy strategy) {
+    private AdapterHandler(NamingStrategy strategy, boolean compiled, BiConsumer<Class<?>, String> unknownKeys) {
         this.namingStrategy = strategy;
+        this.compiled = compiled;
+        this.unknownKeys = unknownKeys;
     }
 
     public static AdapterHandler create(NamingStrategy strategy) {
-        return new AdapterHandler(strategy);
+        return create(strategy, false);
+    }
+
+    /*
+     * When compiled is true, objects are bound through a ClassCodec compiled
+     * once per class instead of walking the binding plan generically
+     */
+    public static AdapterHandler create(NamingStrategy strategy, boolean compiled) {
+        return create(strategy, compiled, null);
+    }
+
+    /*
+     * unknownKeys is given the class being read and the path of each key in
+     * its section which no field is bound to, unless the class keeps those in
+     * a @Self section
+     */
+    public static AdapterHandler create(NamingStrategy strategy, boolean compiled,
+                                        BiConsumer<Class<?>, String> unknownKeys) {
+        return new AdapterHandler(strategy, compiled, unknownKeys);
     }
     
     public static <I> void registerAdapter(Class<I> clazz, ObjectAdapter<I, ?> adapter) {
-        ADAPTERS.replace(clazz, adapter);
+        if (ADAPTERS.replace(clazz, adapter) != null) {
+            ClassBindingPlan.invalidateAll(); // plans hold the adapter of each field
+        }
+    }
+
+    private static ClassValue<ClassKind> newKinds() {
+        return new ClassValue<ClassKind>() {
+            @Override
+            protected ClassKind computeValue(Class<?> type) {
+                return classify(type);
+            }
+        };
+    }
+
+    private static ClassValue<Boolean> newFiltered() {
+        return new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return FILTER_CLASSES.stream().anyMatch((e) -> e.isAssignableFrom(type));
+            }
+        };
+    }
+
+    private static ClassKind classify(Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            return ClassKind.PRIMITIVE;
+        }
+
+        if (PRIMITIVE_BOXES.containsValue(clazz)) {
+            return ClassKind.BOX;
+        }
+
+        if (clazz == String.class) {
+            return ClassKind.STRING;
+        }
+
+        if (ADAPTERS.containsKey(clazz)) {
+            return ClassKind.ADAPTED;
+        }
+
+        if (Collection.class.isAssignableFrom(clazz)) {
+            return ClassKind.COLLECTION;
+        }
+
+        if (Map.class.isAssignableFrom(clazz)) {
+            return ClassKind.MAP;
+        }
+
+        if (clazz.isArray()) {
+            return ClassKind.ARRAY;
+        }
+
+        if (ConfigurationSerializable.class.isAssignableFrom(clazz)) {
+            return ClassKind.SERIALIZABLE;
+        }
+
+        return ClassKind.BEAN;
+    }
+
+    public static ClassKind kindOf(Class<?> clazz) {
+        return KINDS.get(clazz);
+    }
+
+    static Class<?> boxOf(Class<?> primitive) {
+        return PRIMITIVE_BOXES.get(primitive);
+    }
+
+    static boolean isBox(Class<?> clazz) {
+        return kindOf(clazz) == ClassKind.BOX;
+    }
+
+    /*
+     * Whether the class is, or extends, one of the types written as-is or through an adapter
+     */
+    static boolean isFiltered(Class<?> clazz) {
+        return FILTERED.get(clazz);
+    }
+
+    static ObjectAdapter<?, ?> adapterFor(Class<?> clazz) {
+        return ADAPTERS.get(clazz);
+    }
+
+    /*
+     * The class a field declared as declaredClass is written out as
+     */
+    public static Class<?> fieldOutClass(Class<?> declaredClass) {
+        Class<?> outClass = declaredClass;
+
+        if (!isFiltered(declaredClass) && !declaredClass.isArray()) {
+            outClass = MemorySection.class;
+        }
+
+        if (declaredClass.isPrimitive()) {
+            outClass = boxOf(declaredClass);
+        }
+
+        if (Map.class.isAssignableFrom(outClass)) {
+            outClass = ConfigurationSection.class;
+        } else if (Collection.class.isAssignableFrom(outClass) || outClass.isArray()) {
+            outClass = Object.class;
+        }
+
+        return outClass;
+    }
+
+    public NamingStrategy namingStrategy() {
+        return namingStrategy;
+    }
+
+    <T> ClassCodec<T> codecFor(Class<T> clazz) {
+        return ClassBindingPlan.of(clazz, namingStrategy).codec();
+    }
+
+    /*
+     * The adapter generated by the processor for the class, bound to this handler, or null if none was
+     */
+    <T> ObjectAdapter<T, ConfigurationSection> generatedAdapter(Class<T> clazz) {
+        if (!GeneratedAdapters.exists(clazz)) {
+            return null;
+        }
+
+        return (ObjectAdapter<T, ConfigurationSection>) generated.computeIfAbsent(clazz,
+                (k) -> GeneratedAdapters.create(k, this));
     }
 
     public static boolean isSerializable(Class<?> clazz) {
-        return (ConfigurationSerializable.class.isAssignableFrom(clazz) &&
-                ConfigurationSerializableHelper.isRegistered(clazz)) ||
-                ((FILTER_CLASSES.stream().anyMatch((e) -> e.isAssignableFrom(clazz) || clazz.equals(e))));
+        return isFiltered(clazz) || (ConfigurationSerializable.class.isAssignableFrom(clazz) &&
+                ConfigurationSerializableHelper.isRegistered(clazz));
     }
 
     public static Class<?> outClass(Class<?> clazz) {
@@ -104,30 +251,52 @@ public final class AdapterHandler {
         return clazz;
     }
 
+    /*
+     * The class an element or map value of this type is written out as; nested
+     * collections and maps may come out as lists or sections
+     */
+    public static Class<?> elementOutClass(Class<?> type) {
+        if (Collection.class.isAssignableFrom(type)) {
+            return Object.class;
+        }
+
+        return Map.class.isAssignableFrom(type) ? ConfigurationSection.class : outClass(type);
+    }
+
     public <I, O> O adaptOut(I input, Class<O> outClass) {
         return adaptOut(input, outClass, null);
     }
 
     public <I, O> O adaptOut(I input, Class<O> outClass, Class<?> type) {
-        if (Collection.class.isAssignableFrom(input.getClass())) {
-            CollectionAdapter adapter = CollectionAdapter.create(type,
+        return adaptOut(input, outClass, type, null);
+    }
+
+    /*
+     * argument is the element type of collection elements or map values which
+     * are collections or maps themselves
+     */
+    public <I, O> O adaptOut(I input, Class<O> outClass, Class<?> type, Class<?> argument) {
+        Class<?> inputClass = input.getClass();
+        ClassKind kind = kindOf(inputClass);
+
+        if (kind == ClassKind.COLLECTION) {
+            CollectionAdapter adapter = CollectionAdapter.create(type, argument,
                     (Class<? extends Collection>) outClass, this);
             return outClass.cast(adapter.write((Collection) input));
         }
 
-        if (Map.class.isAssignableFrom(input.getClass())) {
-            MapAdapter adapter = MapAdapter.create(type,
+        if (kind == ClassKind.MAP) {
+            MapAdapter adapter = MapAdapter.create(type, argument,
                     this);
             return outClass.cast(adapter.write((Map) input));
         }
 
-        if (input.getClass().isArray()) {
-            Class<?> cls = input.getClass();
-            ArrayAdapter adapter = ArrayAdapter.create(cls.getComponentType(), this);
+        if (kind == ClassKind.ARRAY) {
+            ArrayAdapter adapter = ArrayAdapter.create(inputClass.getComponentType(), this);
             return outClass.cast(adapter.write(input));
         }
 
-        if (PRIMITIVE_BOXES.values().contains(outClass) || input.getClass().isPrimitive()) {
+        if (kind == ClassKind.PRIMITIVE || isBox(outClass)) {
             return outClass.cast(input);
         }
 
@@ -135,98 +304,386 @@ public final class AdapterHandler {
             return outClass.cast(input);
         }
 
-        ObjectAdapter<?, ?> oldAdapter = ADAPTERS.get(input.getClass());
+        ObjectAdapter<?, ?> oldAdapter = kind == ClassKind.ADAPTED ? ADAPTERS.get(inputClass) : null;
 
         if (oldAdapter == null) {
-            if (ConfigurationSerializableHelper.isRegistered(input.getClass()) && // ensure registration for deserialization purposes
-                    input instanceof ConfigurationSerializable) {
+            if (kind == ClassKind.SERIALIZABLE && // ensure registration for deserialization purposes
+                    ConfigurationSerializableHelper.isRegistered(inputClass)) {
                 MemorySection memorySection = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);
                 ((ConfigurationSerializable) input).serialize().forEach(memorySection::set);
                 return outClass.cast(memorySection);
             }
 
-            MemorySection section = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);
-            InternalsHelper.setField("map", section, new LinkedHashMap());
-            Field[] fields = input.getClass().getDeclaredFields();
-            Field selfField = null;
+            ObjectAdapter<I, ConfigurationSection> generated = generatedAdapter((Class<I>) inputClass);
 
-            for (Field field : fields) {
-                if (Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
+            if (generated != null) {
+                return outClass.cast(generated.write(input));
+            }
 
-                Object value = InternalsHelper.getField(field, input);
+            if (compiled) {
+                return outClass.cast(codecFor((Class<I>) inputClass).write(input, this));
+            }
 
-                if (value != null) {
-                    Class<?> fieldType = null;
-                    Class<?> fieldClass = field.getType();
-                    Class<?> beforeFieldClass = fieldClass;
+            SerializableMemorySection section = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);
+            writeSlots(input, ClassBindingPlan.of(inputClass, namingStrategy), section.map());
+            return outClass.cast(section);
+        }
 
-                    if (field.getDeclaredAnnotation(Self.class) != null) {
-                        if (!ConfigurationSection.class.isAssignableFrom(beforeFieldClass)) {
-                            throw new ClassStructureException("Field " + field.getName() + " with @Self annotation is not a " +
-                                    "configuration section, is " + beforeFieldClass.getName());
-                        }
+        ObjectAdapter<I, O> adapter;
 
-                        selfField = field;
-                        continue;
-                    }
+        try {
+            adapter = (ObjectAdapter<I, O>) oldAdapter;
+        } catch (ClassCastException ex) {
+            throw new ClassStructureException(outClass.getName() + " does not match registered adapter" +
+                    " for " + input.getClass().getName() + "!");
+        }
 
-                    if (!FILTER_CLASSES.stream().anyMatch((e) -> e.isAssignableFrom(beforeFieldClass))
-                            && !fieldClass.isArray()) {
-                        fieldClass = MemorySection.class;
-                    }
+        return adapter.write(input);
+    }
 
-                    if (beforeFieldClass.isPrimitive()) {
-                        fieldClass = PRIMITIVE_BOXES.get(beforeFieldClass);
-                    }
+    /*
+     * Adapts the top-level values of a config object without building a root
+     * section for them; nested objects are still adapted to sections
+     */
+    public Map<String, Object> adaptOutValues(Object input) {
+        Class<?> inputClass = input.getClass();
 
-                    if (Map.class.isAssignableFrom(fieldClass)) {
-                        fieldType = InternalsHelper.typeOf(field, 1);
-                        fieldClass = ConfigurationSection.class;
-                    } else if (Collection.class.isAssignableFrom(fieldClass)) {
-                        fieldType = InternalsHelper.typeOf(field, 0);
-                        fieldClass = Object.class;
-                    } else if (fieldClass.isArray()) {
-                        fieldClass = Object.class;
-                    }
+        if (kindOf(inputClass) != ClassKind.BEAN || compiled || GeneratedAdapters.exists(inputClass)) {
+            return adaptOut(input, ConfigurationSection.class).getValues(false);
+        }
 
-                    Object obj = adaptOut(value, fieldClass, fieldType);
+        Map<String, Object> values = new LinkedHashMap<>();
+        writeSlots(input, ClassBindingPlan.of(inputClass, namingStrategy), values);
+        return values;
+    }
 
-                    if (obj instanceof String && field.isAnnotationPresent(Coloured.class)) {
-                        Coloured annotation = field.getDeclaredAnnotation(Coloured.class);
-                        obj = translateAlternateColorCodes(annotation.value(), ChatColor.COLOR_CHAR, (String) obj);
-                    }
+    /*
+     * Reads section as target's class and rebinds the result into target, see rebind
+     */
+    public int adaptInto(ConfigurationSection section, Object target) {
+        return rebind(adaptIn(section, null, target.getClass()), target);
+    }
 
-                    section.set(namingStrategy.rename(field.getName()), obj);
-                }
+    /*
+     * Copies each bound field of source whose value differs into target, leaving
+     * transient fields alone. Nested objects, lists, maps and arrays of target
+     * are updated in place when their shape is unchanged, so references held to
+     * them stay valid; otherwise the field is replaced. @Lazy fields are always
+     * replaced, as comparing them would adapt every element. Returns the number
+     * of values changed.
+     */
+    public int rebind(Object source, Object target) {
+        ClassBindingPlan plan = ClassBindingPlan.of(target.getClass(), namingStrategy);
+        int changed = 0;
+
+        for (FieldSlot slot : plan.slots()) {
+            Object value = slot.accessor().get(source);
+            Object current = slot.accessor().get(target);
+            int merged = slot.lazy() ? (value == current ? 0 : -1) : merge(current, value);
+
+            if (merged >= 0) {
+                changed += merged;
+            } else if (slot.accessor().set(target, value)) {
+                changed++;
+            }
+        }
+
+        if (plan.selfAccessor() != null) {
+            changed += mergeSelf(plan.selfAccessor(), source, target);
+        }
+
+        return changed;
+    }
+
+    /*
+     * Updates current to match value in place, returning the number of values
+     * changed, or -1 if current has to be replaced by value instead
+     */
+    private int merge(Object current, Object value) {
+        if (Objects.deepEquals(current, value)) {
+            return 0;
+        }
+
+        if (current == null || value == null) {
+            return -1;
+        }
+
+        // the adapted implementation may differ from the one the field was initialised with
+        if (current instanceof List && value instanceof List) {
+            return mergeList((List<Object>) current, (List<?>) value);
+        }
+
+        if (current instanceof Map && value instanceof Map) {
+            return mergeMap((Map<Object, Object>) current, (Map<?, ?>) value);
+        }
+
+        if (current.getClass() != value.getClass()) {
+            return -1;
+        }
+
+        if (current.getClass().isArray()) {
+            return mergeArray(current, value);
+        }
+
+        if (planFor(current.getClass()) != null) {
+            return rebind(value, current);
+        }
+
+        return mergeAtomic(current, value);
+    }
+
+    /*
+     * Atomics don't implement equals, so are compared and set by value
+     */
+    private static int mergeAtomic(Object current, Object value) {
+        if (current instanceof AtomicInteger) {
+            int next = ((AtomicInteger) value).get();
+            return ((AtomicInteger) current).getAndSet(next) == next ? 0 : 1;
+        }
+
+        if (current instanceof AtomicLong) {
+            long next = ((AtomicLong) value).get();
+            return ((AtomicLong) current).getAndSet(next) == next ? 0 : 1;
+        }
+
+        if (current instanceof AtomicBoolean) {
+            boolean next = ((AtomicBoolean) value).get();
+            return ((AtomicBoolean) current).getAndSet(next) == next ? 0 : 1;
+        }
+
+        if (current instanceof AtomicIntegerArray) {
+            AtomicIntegerArray array = (AtomicIntegerArray) current;
+            AtomicIntegerArray values = (AtomicIntegerArray) value;
+
+            if (array.length() != values.length()) {
+                return -1;
+            }
+
+            int changed = 0;
+
+            for (int i = 0; i < array.length(); i++) {
+                int next = values.get(i);
+                changed += array.getAndSet(i, next) == next ? 0 : 1;
             }
 
-            if (selfField != null) {
-                ConfigurationSection selfSec = InternalsHelper.getField(selfField, input);
+            return changed;
+        }
+
+        if (current instanceof AtomicLongArray) {
+            AtomicLongArray array = (AtomicLongArray) current;
+            AtomicLongArray values = (AtomicLongArray) value;
+
+            if (array.length() != values.length()) {
+                return -1;
+            }
+
+            int changed = 0;
+
+            for (int i = 0; i < array.length(); i++) {
+                long next = values.get(i);
+                changed += array.getAndSet(i, next) == next ? 0 : 1;
+            }
+
+            return changed;
+        }
+
+        return -1;
+    }
+
+    private int mergeList(List<Object> current, List<?> value) {
+        if (current.size() != value.size()) {
+            return -1;
+        }
+
+        int changed = 0;
 
-                if (selfSec != null) {
-                    selfSec.getValues(false).forEach((key, value) -> {
-                        if (!section.contains(key)) {
-                            section.set(key, value);
-                        }
-                    });
+        try {
+            for (int i = 0; i < current.size(); i++) {
+                int merged = merge(current.get(i), value.get(i));
+
+                if (merged < 0) {
+                    current.set(i, value.get(i));
+                    merged = 1;
                 }
+
+                changed += merged;
             }
+        } catch (UnsupportedOperationException ex) { // immutable
+            return -1;
+        }
 
-            return outClass.cast(section);
+        return changed;
+    }
+
+    private int mergeMap(Map<Object, Object> current, Map<?, ?> value) {
+        if (!current.keySet().equals(value.keySet())) {
+            return -1;
         }
 
-        ObjectAdapter<I, O> adapter;
+        int changed = 0;
 
         try {
-            adapter = (ObjectAdapter<I, O>) oldAdapter;
-        } catch (ClassCastException ex) {
-            throw new ClassStructureException(outClass.getName() + " does not match registered adapter" +
-                    " for " + input.getClass().getName() + "!");
+            for (Map.Entry<?, ?> entry : value.entrySet()) {
+                int merged = merge(current.get(entry.getKey()), entry.getValue());
+
+                if (merged < 0) {
+                    current.put(entry.getKey(), entry.getValue());
+                    merged = 1;
+                }
+
+                changed += merged;
+            }
+        } catch (UnsupportedOperationException ex) { // immutable
+            return -1;
         }
 
-        return adapter.write(input);
+        return changed;
+    }
+
+    private int mergeArray(Object current, Object value) {
+        int length = Array.getLength(current);
+
+        if (length != Array.getLength(value)) {
+            return -1;
+        }
+
+        if (!(current instanceof Object[])) {
+            System.arraycopy(value, 0, current, 0, length);
+            return 1;
+        }
+
+        Object[] elements = (Object[]) current;
+        Object[] values = (Object[]) value;
+        int changed = 0;
+
+        for (int i = 0; i < length; i++) {
+            int merged = merge(elements[i], values[i]);
+
+            if (merged < 0) {
+                elements[i] = values[i];
+                merged = 1;
+            }
+
+            changed += merged;
+        }
+
+        return changed;
+    }
+
+    /*
+     * Sections only have identity equality, so the @Self section is compared
+     * and updated key by key, keeping the section target already holds
+     */
+    private static int mergeSelf(FieldAccessor accessor, Object source, Object target) {
+        ConfigurationSection value = accessor.get(source);
+        ConfigurationSection current = accessor.get(target);
+
+        if (value == null || current == null) {
+            return value == current ? 0 : (accessor.set(target, value) ? 1 : 0);
+        }
+
+        return mergeSection(current, value);
+    }
+
+    private static int mergeSection(ConfigurationSection current, ConfigurationSection value) {
+        Map<String, Object> values = value.getValues(false);
+        int changed = 0;
+
+        for (String key : current.getKeys(false)) {
+            if (!values.containsKey(key)) {
+                current.set(key, null);
+                changed++;
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Object existing = current.get(entry.getKey(), null);
+            Object next = entry.getValue();
+
+            if (next instanceof ConfigurationSection) {
+                if (existing instanceof ConfigurationSection) {
+                    changed += mergeSection((ConfigurationSection) existing, (ConfigurationSection) next);
+                } else {
+                    mergeSection(current.createSection(entry.getKey()), (ConfigurationSection) next);
+                    changed++;
+                }
+            } else if (!Objects.deepEquals(existing, next)) {
+                current.set(entry.getKey(), next);
+                changed++;
+            }
+        }
+
+        return changed;
+    }
+
+    private void writeSlots(Object input, ClassBindingPlan plan, Map<String, Object> values) {
+        for (FieldSlot slot : plan.slots()) {
+            Object value = slot.accessor().get(input);
+
+            if (value == null) {
+                continue;
+            }
+
+            Object adapted = adaptSlot(slot, value);
+
+            if (adapted == null) { // as section.set(key, null) removes the key
+                values.remove(slot.name());
+            } else {
+                values.put(slot.name(), adapted);
+            }
+        }
+
+        if (plan.selfAccessor() != null) {
+            ConfigurationSection selfSec = plan.selfAccessor().get(input);
+
+            if (selfSec != null) {
+                selfSec.getValues(false).forEach((key, value) -> {
+                    if (values.get(key) == null) {
+                        values.put(key, value);
+                    }
+                });
+            }
+        }
+    }
+
+    /*
+     * Adapts the non-null value of the plan's slot at index the way the
+     * object as a whole is written, through the class's codec in compiled mode
+     */
+    public Object adaptSlot(ClassBindingPlan plan, int index, Object value) {
+        if (compiled) {
+            return plan.codec().writeSlot(index, value, this);
+        }
+
+        return adaptSlot(plan.slots().get(index), value);
+    }
+
+    private Object adaptSlot(FieldSlot slot, Object value) {
+        Object obj;
+
+        if (slot.adapter() != null && value.getClass() == slot.fieldClass()) {
+            obj = ((ObjectAdapter<Object, ?>) slot.adapter()).write(value);
+        } else {
+            obj = adaptOut(value, slot.outClass(), slot.typeArgument(), slot.elementArgument());
+        }
+
+        if (obj instanceof String && slot.coloured()) {
+            obj = translateAlternateColorCodes(slot.colourChar(), ChatColor.COLOR_CHAR, (String) obj);
+        }
+
+        return obj;
+    }
+
+    /*
+     * The binding plan top-level values of this class are written through, or
+     * null if it is written by an adapter or generated code instead
+     */
+    public ClassBindingPlan planFor(Class<?> type) {
+        if (kindOf(type) != ClassKind.BEAN || GeneratedAdapters.exists(type)) {
+            return null;
+        }
+
+        return ClassBindingPlan.of(type, namingStrategy);
     }
 
     public <I> I adaptIn(ConfigurationSection section, String key, Class<I> inClass) {
@@ -234,104 +691,337 @@ public final class AdapterHandler {
     }
 
     public <I, O> I adaptIn(ConfigurationSection section, String key, Class<I> inClass, Class<?> type) {
-        if (inClass.isArray()) {
+        ClassKind kind = kindOf(inClass);
+
+        if (kind == ClassKind.ARRAY) {
             ArrayAdapter adapter = ArrayAdapter.create(inClass.getComponentType(), this);
             return inClass.cast(adapter.read(key, section));
         }
 
-        if (Collection.class.isAssignableFrom(inClass)) {
+        if (kind == ClassKind.COLLECTION) {
             CollectionAdapter adapter = CollectionAdapter.create(type,
                     (Class<? extends Collection>) inClass, this);
             return inClass.cast(adapter.read(key, section));
         }
 
-        if (Map.class.isAssignableFrom(inClass)) {
+        if (kind == ClassKind.MAP) {
             MapAdapter adapter = MapAdapter.create(type,
                     this);
             return inClass.cast(adapter.read(key, section));
         }
 
-        if (inClass.isPrimitive() || inClass == String.class || PRIMITIVE_BOXES.values().contains(inClass)) {
+        if (kind == ClassKind.PRIMITIVE || kind == ClassKind.STRING || kind == ClassKind.BOX) {
             return inClass.cast(section.get(key));
         }
 
-        ObjectAdapter<?, ?> oldAdapter = ADAPTERS.get(inClass);
+        ObjectAdapter<?, ?> oldAdapter = kind == ClassKind.ADAPTED ? ADAPTERS.get(inClass) : null;
 
         if (oldAdapter == null) {
-            if (ConfigurationSerializableHelper.isRegistered(inClass) &&
-                    ConfigurationSerializable.class.isAssignableFrom(inClass)) {
+            if (kind == ClassKind.SERIALIZABLE && ConfigurationSerializableHelper.isRegistered(inClass)) {
                 return ConfigurationSerializableHelper.deserialize(ConfigurationSerializableHelper.toMap(section.getConfigurationSection(key)),
                         inClass);
             }
 
+            ObjectAdapter<I, ConfigurationSection> generated = generatedAdapter(inClass);
+
+            if (generated != null) {
+                return generated.read(key, section);
+            }
+
             ConfigurationSection readingSection = (key == null) ? section : section.getConfigurationSection(key);
-            I instance = InternalsHelper.newInstance(inClass);
-            Field[] fields = inClass.getDeclaredFields();
-            Field selfField = null;
+            return bindSection(readingSection, inClass, key);
+        }
 
-            for (Field field : fields) {
-                if (Modifier.isTransient(field.getModifiers())) {
-                    continue;
-                }
+        ObjectAdapter<I, O> adapter;
 
-                String name = namingStrategy.rename(field.getName());
+        try {
+            adapter = (ObjectAdapter<I, O>) oldAdapter;
+        } catch (ClassCastException ex) {
+            throw new ClassStructureException(ex);
+        }
 
-                if (field.getDeclaredAnnotation(Self.class) != null) {
-                    if (!ConfigurationSection.class.isAssignableFrom(field.getType())) {
-                        throw new ClassStructureException("Field " + field.getName() + " with @Self annotation is not a " +
-                                "configuration section, is " + field.getType().getName());
-                    }
+        return adapter.read(key, section);
+    }
 
-                    selfField = field;
-                    continue;
-                }
+    /*
+     * Reads a @Lazy List, Collection or Map field, deferring adaptation of its
+     * elements until they are first read. Falls back to an eager read when the
+     * element type is unknown.
+     */
+    public <I> I readLazy(ConfigurationSection section, String key, Class<I> fieldClass, Class<?> elementType) {
+        if (elementType == null) {
+            return adaptIn(section, key, fieldClass, null);
+        }
+
+        return readLazy(section.get(key), fieldClass, elementType);
+    }
 
-                if (!readingSection.contains(name)) {
-                    if (field.getAnnotation(RequiredField.class) != null) {
-                        String message = "Could not find the required field, " + name;
+    public <I> I readLazy(Object raw, Class<I> fieldClass, Class<?> elementType) {
+        return readLazy(raw, fieldClass, elementType, null);
+    }
+
+    /*
+     * elementArgument is the element type of elements which are collections or maps themselves
+     */
+    public <I> I readLazy(Object raw, Class<I> fieldClass, Class<?> elementType, Class<?> elementArgument) {
+        if (raw == null) {
+            return null;
+        }
+
+        if (elementType == null) {
+            return adaptValueIn(raw, fieldClass, null);
+        }
 
-                        if (key != null) {
-                            message += ", in section " + key;
-                        }
+        if (Map.class.isAssignableFrom(fieldClass)) {
+            return fieldClass.cast(LazyMap.read(raw, elementType, elementArgument, this));
+        }
+
+        return fieldClass.cast(LazyList.read(raw, elementType, elementArgument, this));
+    }
+
+    public <I> I adaptValueIn(Object raw, Class<I> inClass) {
+        return adaptValueIn(raw, inClass, null);
+    }
 
-                        throw new InvalidConfigurationException(message);
+    /*
+     * Converts a raw parsed value (a scalar, list, map or section) directly,
+     * without placing it in a section under a key first
+     */
+    public <I> I adaptValueIn(Object raw, Class<I> inClass, Class<?> type) {
+        return adaptValueIn(raw, inClass, type, null, null);
+    }
+
+    /*
+     * argument is the element type of collection elements or map values which
+     * are collections or maps themselves
+     */
+    public <I> I adaptValueIn(Object raw, Class<I> inClass, Class<?> type, Class<?> argument) {
+        return adaptValueIn(raw, inClass, type, argument, null);
+    }
+
+    /*
+     * key names the value in messages about missing required fields and invalid elements
+     */
+    <I> I adaptValueIn(Object raw, Class<I> inClass, Class<?> type, Class<?> argument, String key) {
+        if (raw == null) {
+            return null;
+        }
+
+        ClassKind kind = kindOf(inClass);
+
+        switch (kind) {
+            case ARRAY:
+                return inClass.cast(ArrayAdapter.create(inClass.getComponentType(), this).readValue(raw, key));
+            case COLLECTION:
+                return inClass.cast(CollectionAdapter.create(type, argument, (Class<? extends Collection>) inClass, this)
+                        .readValue(raw));
+            case MAP:
+                return inClass.cast(MapAdapter.create(type, argument, this).readValue(raw));
+            case PRIMITIVE:
+                return (I) boxOf(inClass).cast(raw);
+            case STRING:
+            case BOX:
+                return inClass.cast(raw);
+            case ADAPTED:
+                return ((ObjectAdapter<I, ?>) ADAPTERS.get(inClass)).readValue(raw);
+            case SERIALIZABLE:
+                if (ConfigurationSerializableHelper.isRegistered(inClass)) {
+                    if (inClass.isInstance(raw)) {
+                        return inClass.cast(raw);
                     }
 
-                    continue;
+                    Map<String, Object> map = raw instanceof ConfigurationSection ?
+                            ConfigurationSerializableHelper.toMap((ConfigurationSection) raw) : (Map<String, Object>) raw;
+                    return ConfigurationSerializableHelper.deserialize(map, inClass);
                 }
 
-                Class<?> fieldType = null;
-                Class<?> fieldClass = field.getType();
+                return bindObject(raw, inClass, key); // not registered, bind it as a plain object
+            default:
+                return bindObject(raw, inClass, key);
+        }
+    }
+
+    private <I> I bindObject(Object raw, Class<I> inClass, String key) {
+        ObjectAdapter<I, ConfigurationSection> generated = generatedAdapter(inClass);
+
+        if (generated != null) {
+            return generated.read(null, toSection(raw));
+        }
+
+        if (raw instanceof Map) { // parsed mapping from direct binding
+            Map<String, ?> values = stringKeyed((Map<?, ?>) raw);
+            return compiled ? codecFor(inClass).read(values, key, this) : bindValues(values, inClass, null, key);
+        }
+
+        return bindSection(toSection(raw), inClass, key);
+    }
+
+    private <I> I bindSection(ConfigurationSection section, Class<I> inClass, String key) {
+        if (compiled) {
+            return codecFor(inClass).read(section, key, this);
+        }
+
+        return bindValues(section.getValues(false), inClass, section, key);
+    }
+
+    private <I> I bindValues(Map<String, ?> values, Class<I> inClass, ConfigurationSection section, String key) {
+        ClassBindingPlan plan = ClassBindingPlan.of(inClass, namingStrategy);
+        List<FieldSlot> slots = plan.slots();
+        return bindValues(plan, values, section, key, (instance, target, raw) -> readSlot(instance, slots.get(target), raw));
+    }
+
+    private void readSlot(Object instance, FieldSlot slot, Object raw) {
+        Object value;
+
+        if (slot.lazy()) {
+            value = readLazy(raw, slot.fieldClass(), slot.typeArgument(), slot.elementArgument());
+        } else if (slot.adapter() != null) {
+            value = slot.adapter().readValue(raw);
+        } else {
+            value = adaptValueIn(raw, slot.fieldClass(), slot.typeArgument(), slot.elementArgument(), slot.name());
+        }
+
+        slot.accessor().set(instance, value);
+    }
+
+    /*
+     * Binds an object in one sweep over the keys present, dispatching each to
+     * its field through the plan's key index and reading it with reader.
+     * values are the contents of section, or a parsed mapping bound without
+     * building sections when section is null, in which case one is only made
+     * for a @Self field.
+     */
+    <I> I bindValues(ClassBindingPlan plan, Map<String, ?> values, ConfigurationSection section, String key,
+                     SlotReader reader) {
+        I instance = plan.newInstance();
+        List<FieldSlot> slots = plan.slots();
+        boolean[] found = new boolean[slots.size()];
+
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            Object raw = entry.getValue();
+
+            if (raw == null) { // as sections hold no null values
+                continue;
+            }
+
+            int[] targets = plan.slotsNamed(entry.getKey());
 
-                if (fieldClass.isPrimitive()) {
-                    fieldClass = PRIMITIVE_BOXES.get(fieldClass);
+            if (targets == null) {
+                // otherwise it is kept in the @Self section
+                if (plan.selfAccessor() == null && !plan.isPathRoot(entry.getKey())) {
+                    reportUnknownKey(plan.type(), section != null ? section.getCurrentPath() : key, entry.getKey());
                 }
 
-                if (Map.class.isAssignableFrom(fieldClass)) {
-                    fieldType = InternalsHelper.typeOf(field, 1);
-                } else if (Collection.class.isAssignableFrom(fieldClass)) {
-                    fieldType = InternalsHelper.typeOf(field, 0);
+                continue;
+            }
+
+            for (int target : targets) {
+                reader.read(instance, target, raw);
+                found[target] = true;
+            }
+        }
+
+        for (int target : plan.pathSlots()) {
+            Object raw;
+
+            if (!found[target] && (raw = valueAt(values, slots.get(target).name())) != null) {
+                reader.read(instance, target, raw);
+                found[target] = true;
+            }
+        }
+
+        for (int i = 0; i < found.length; i++) {
+            FieldSlot slot = slots.get(i);
+
+            if (!found[i] && slot.required()) {
+                String message = "Could not find the required field, " + slot.name();
+
+                if (key != null) {
+                    message += ", in section " + key;
                 }
 
-                InternalsHelper.setField(field, instance, adaptIn(readingSection, name, fieldClass, fieldType));
+                throw new InvalidConfigurationException(message);
+            }
+        }
+
+        if (plan.selfAccessor() != null) {
+            plan.selfAccessor().set(instance, section != null ? section : toSection(values));
+        }
+
+        return instance;
+    }
+
+    /*
+     * Follows a path such as "a.b" through nested sections or parsed mappings
+     */
+    private static Object valueAt(Map<String, ?> values, String path) {
+        Object current = values;
+
+        for (String part : path.split("\\.")) {
+            if (current instanceof ConfigurationSection) {
+                current = ((ConfigurationSection) current).get(part);
+            } else if (current instanceof Map) {
+                current = ((Map<?, ?>) current).get(part);
+            } else {
+                return null;
             }
+        }
+
+        return current;
+    }
+
+    /*
+     * Passes a key no field is bound to on to the unknown key handler, if there
+     * is one. Public for generated adapters.
+     */
+    public void reportUnknownKey(Class<?> type, String path, String key) {
+        if (unknownKeys != null) {
+            unknownKeys.accept(type, path == null || path.isEmpty() ? key : path + "." + key);
+        }
+    }
+
+    /*
+     * Reads the non-null raw value of the plan's slot at index into instance
+     */
+    interface SlotReader {
+        void read(Object instance, int index, Object raw);
+    }
 
-            if (selfField != null) {
-                InternalsHelper.setField(selfField, instance, readingSection);
+    static Map<String, ?> stringKeyed(Map<?, ?> values) {
+        for (Object key : values.keySet()) {
+            if (!(key instanceof String)) {
+                Map<String, Object> copy = new LinkedHashMap<>(values.size() * 2);
+                values.forEach((k, v) -> copy.put(String.valueOf(k), v));
+                return copy;
             }
+        }
 
-            return instance;
+        return (Map<String, ?>) values;
+    }
+
+    /*
+     * Views a raw parsed mapping as a configuration section
+     */
+    public static ConfigurationSection toSection(Object raw) {
+        if (raw instanceof ConfigurationSection) {
+            return (ConfigurationSection) raw;
         }
 
-        ObjectAdapter<I, O> adapter;
+        if (raw instanceof Map) { // as MemorySection#createSection(String, Map) fills a section
+            MemoryConfiguration section = new MemoryConfiguration();
 
-        try {
-            adapter = (ObjectAdapter<I, O>) oldAdapter;
-        } catch (ClassCastException ex) {
-            throw new ClassStructureException(ex);
+            ((Map<?, ?>) raw).forEach((key, value) -> {
+                if (value instanceof Map) {
+                    section.createSection(key.toString(), (Map<?, ?>) value);
+                } else {
+                    section.set(key.toString(), value);
+                }
+            });
+
+            return section;
         }
 
-        return adapter.read(key, section);
+        throw new InvalidConfigurationException("Expected a section but found " + raw);
     }
 
     public static String translateAlternateColorCodes(char colorChar, char altColorChar, String textToTranslate) {
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.configuration.ConfigurationSection;
+import xyz.mkotb.configapi.Coloured;
+import xyz.mkotb.configapi.Lazy;
+import xyz.mkotb.configapi.RequiredField;
+import xyz.mkotb.configapi.comment.Self;
+import xyz.mkotb.configapi.ex.ClassStructureException;
+import xyz.mkotb.configapi.internal.FieldAccessor;
+import xyz.mkotb.configapi.internal.Instantiator;
+import xyz.mkotb.configapi.internal.InternalsHelper;
+import xyz.mkotb.configapi.internal.naming.NamingStrategy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/*
+ * An immutable description of how a class is bound to and from a configuration section,
+ * compiled once per (class, naming strategy) pair and reused for every object of that class.
+ */
+public final class ClassBindingPlan {
+    // held by each class rather than a static map so plugin classloaders can be collected,
+    // and replaced rather than cleared as ClassValue has no bulk invalidation
+    private static volatile ClassValue<Map<NamingStrategy, ClassBindingPlan>> plans = newPlans();
+    private final Class<?> type;
+    private final List<FieldSlot> slots;
+    private final FieldAccessor selfAccessor;
+    private final Map<String, int[]> index = new HashMap<>();
+    // slots renamed to a path such as "a.b", and the top-level keys those paths start with
+    private final int[] pathSlots;
+    private final Set<String> pathRoots = new HashSet<>();
+    private final Instantiator<?> instantiator;
+    private volatile ClassCodec<?> codec;
+
+    private ClassBindingPlan(Class<?> type, List<FieldSlot> slots, FieldAccessor selfAccessor) {
+        this.type = type;
+        this.slots = slots;
+        this.selfAccessor = selfAccessor;
+        this.instantiator = Instantiator.of(type);
+        int paths = 0;
+
+        for (int i = 0; i < slots.size(); i++) {
+            String name = slots.get(i).name();
+
+            if (name.indexOf('.') >= 0) {
+                pathRoots.add(name.substring(0, name.indexOf('.')));
+                paths++;
+            }
+
+            int[] previous = index.get(slots.get(i).name());
+            int[] targets = previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+
+            targets[targets.length - 1] = i;
+            index.put(slots.get(i).name(), targets);
+        }
+
+        this.pathSlots = new int[paths];
+
+        for (int i = 0, j = 0; j < paths; i++) {
+            if (slots.get(i).name().indexOf('.') >= 0) {
+                pathSlots[j++] = i;
+            }
+        }
+    }
+
+    public static ClassBindingPlan of(Class<?> type, NamingStrategy strategy) {
+        // keyed by the strategy itself, as instances of one class may rename differently
+        return plans.get(type).computeIfAbsent(strategy, (k) -> compile(type, strategy));
+    }
+
+    /*
+     * Drops all compiled plans, called when the resolved adapters may have changed
+     */
+    static void invalidateAll() {
+        plans = newPlans();
+    }
+
+    private static ClassValue<Map<NamingStrategy, ClassBindingPlan>> newPlans() {
+        return new ClassValue<Map<NamingStrategy, ClassBindingPlan>>() {
+            @Override
+            protected Map<NamingStrategy, ClassBindingPlan> computeValue(Class<?> type) {
+                // weak so a discarded strategy, and the loader of its class, can be collected
+                return Collections.synchronizedMap(new WeakHashMap<>(2));
+            }
+        };
+    }
+
+    private static ClassBindingPlan compile(Class<?> type, NamingStrategy strategy) {
+        List<FieldSlot> slots = new ArrayList<>();
+        FieldAccessor selfAccessor = null;
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+
+            Class<?> declaredClass = field.getType();
+
+            if (field.getDeclaredAnnotation(Self.class) != null) {
+                if (!ConfigurationSection.class.isAssignableFrom(declaredClass)) {
+                    throw new ClassStructureException("Field " + field.getName() + " with @Self annotation is not a " +
+                            "configuration section, is " + declaredClass.getName());
+                }
+
+                selfAccessor = FieldAccessor.of(field);
+                continue;
+            }
+
+            Class<?> fieldClass = declaredClass.isPrimitive() ? AdapterHandler.boxOf(declaredClass) : declaredClass;
+            Class<?> outClass = AdapterHandler.fieldOutClass(declaredClass);
+            Class<?> typeArgument = null;
+            Class<?> elementArgument = null;
+
+            if (Map.class.isAssignableFrom(declaredClass)) {
+                typeArgument = InternalsHelper.typeOf(field, 1);
+                elementArgument = InternalsHelper.argumentOf(field, 1);
+            } else if (Collection.class.isAssignableFrom(declaredClass)) {
+                typeArgument = InternalsHelper.typeOf(field, 0);
+                elementArgument = InternalsHelper.argumentOf(field, 0);
+            }
+
+            Coloured coloured = field.getDeclaredAnnotation(Coloured.class);
+            boolean lazy = field.isAnnotationPresent(Lazy.class) && (declaredClass == List.class ||
+                    declaredClass == Collection.class || declaredClass == Map.class);
+            slots.add(new FieldSlot(FieldAccessor.of(field), strategy.rename(field.getName()), fieldClass, outClass, typeArgument,
+                    elementArgument, AdapterHandler.adapterFor(fieldClass), field.isAnnotationPresent(RequiredField.class),
+                    coloured != null, coloured == null ? 0 : coloured.value(), lazy));
+        }
+
+        return new ClassBindingPlan(type, Collections.unmodifiableList(slots), selfAccessor);
+    }
+
+    /*
+     * The compiled codec for this plan, built on first use
+     */
+    <T> ClassCodec<T> codec() {
+        ClassCodec<?> codec = this.codec;
+
+        if (codec == null) {
+            this.codec = codec = ClassCodec.compile(this);
+        }
+
+        return (ClassCodec<T>) codec;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    /*
+     * A new instance through the class's no-args constructor, or null if it
+     * has no accessible one
+     */
+    public <T> T newInstance() {
+        return (T) instantiator.create();
+    }
+
+    /*
+     * The bound fields in declaration order, excluding transient fields and the @Self field
+     */
+    public List<FieldSlot> slots() {
+        return slots;
+    }
+
+    /*
+     * The positions in slots() of the fields read from this key, or null if no
+     * field is. Usually one, more when several field names rename to the same key.
+     */
+    public int[] slotsNamed(String key) {
+        return index.get(key);
+    }
+
+    /*
+     * The positions in slots() of the fields whose key is a path into nested
+     * sections, which are looked up by path when not found as a key
+     */
+    int[] pathSlots() {
+        return pathSlots;
+    }
+
+    /*
+     * Whether the key is the first part of a field's path, and so not unknown
+     */
+    boolean isPathRoot(String key) {
+        return pathRoots.contains(key);
+    }
+
+    /*
+     * The accessor for the field annotated with @Self, or null if the class does not declare one
+     */
+    public FieldAccessor selfAccessor() {
+        return selfAccessor;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemorySection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import xyz.mkotb.configapi.internal.InternalsHelper;
+import xyz.mkotb.configapi.internal.SerializableMemorySection;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A codec compiled from a ClassBindingPlan for the compiled engine mode.
+ * Every slot is specialised once to the cheapest way of moving its value
+ * (direct scalar copy, registered adapter, nested codec or the generic
+ * AdapterHandler path), so reading and writing an object involves no type
+ * dispatch for the common cases.
+ */
+public final class ClassCodec<T> {
+    private final ClassBindingPlan plan;
+    private final SlotCodec[] slots;
+
+    private ClassCodec(ClassBindingPlan plan, SlotCodec[] slots) {
+        this.plan = plan;
+        this.slots = slots;
+    }
+
+    static <T> ClassCodec<T> compile(ClassBindingPlan plan) {
+        List<FieldSlot> fieldSlots = plan.slots();
+        SlotCodec[] slots = new SlotCodec[fieldSlots.size()];
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = slotCodecFor(fieldSlots.get(i));
+        }
+
+        return new ClassCodec<>(plan, slots);
+    }
+
+    private static SlotCodec slotCodecFor(FieldSlot slot) {
+        Class<?> declaredClass = slot.field().getType();
+
+        if (slot.lazy()) {
+            return new LazySlot(slot);
+        }
+
+        if (slot.adapter() != null) {
+            return new AdapterSlot(slot);
+        }
+
+        if (declaredClass == int.class) {
+            return new IntSlot(slot);
+        }
+
+        if (declaredClass == long.class) {
+            return new LongSlot(slot);
+        }
+
+        if (declaredClass == double.class) {
+            return new DoubleSlot(slot);
+        }
+
+        if (declaredClass == boolean.class) {
+            return new BooleanSlot(slot);
+        }
+
+        if (declaredClass.isPrimitive() || declaredClass == String.class || AdapterHandler.isBox(declaredClass)) {
+            return new ScalarSlot(slot);
+        }
+
+        if (slot.outClass() == MemorySection.class && !declaredClass.isInterface() &&
+                !Modifier.isAbstract(declaredClass.getModifiers()) &&
+                !ConfigurationSerializable.class.isAssignableFrom(declaredClass) &&
+                !GeneratedAdapters.exists(declaredClass)) {
+            return new BeanSlot(slot);
+        }
+
+        return new GenericSlot(slot);
+    }
+
+    /*
+     * Reads through the handler's key sweep, which reports keys without a field
+     */
+    public T read(ConfigurationSection section, String key, AdapterHandler handler) {
+        return read(section.getValues(false), section, key, handler);
+    }
+
+    /*
+     * Reads a parsed mapping as it is, without building sections for it; one
+     * is only made for a @Self field
+     */
+    public T read(Map<String, ?> values, String key, AdapterHandler handler) {
+        return read(values, null, key, handler);
+    }
+
+    private T read(Map<String, ?> values, ConfigurationSection section, String key, AdapterHandler handler) {
+        return handler.bindValues(plan, values, section, key,
+                (instance, target, raw) -> slots[target].read(instance, raw, handler));
+    }
+
+    public MemorySection write(T object, AdapterHandler handler) {
+        MemorySection section = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);
+
+        for (SlotCodec slot : slots) {
+            slot.write(object, section, handler);
+        }
+
+        if (plan.selfAccessor() != null) {
+            ConfigurationSection selfSec = plan.selfAccessor().get(object);
+
+            if (selfSec != null) {
+                selfSec.getValues(false).forEach((key, value) -> {
+                    if (!section.contains(key)) {
+                        section.set(key, value);
+                    }
+                });
+            }
+        }
+
+        return section;
+    }
+
+    /*
+     * Adapts the non-null value of the slot at index as write would
+     */
+    Object writeSlot(int index, Object value, AdapterHandler handler) {
+        return slots[index].adapt(value, handler);
+    }
+
+    private static abstract class SlotCodec {
+        private final FieldSlot slot;
+
+        SlotCodec(FieldSlot slot) {
+            this.slot = slot;
+        }
+
+        FieldSlot slot() {
+            return slot;
+        }
+
+        void read(Object instance, Object raw, AdapterHandler handler) {
+            slot.accessor().set(instance, readValue(raw, handler));
+        }
+
+        void write(Object instance, MemorySection section, AdapterHandler handler) {
+            Object value = slot.accessor().get(instance);
+
+            if (value != null) {
+                section.set(slot.name(), adapt(value, handler));
+            }
+        }
+
+        Object adapt(Object value, AdapterHandler handler) {
+            Object obj = writeValue(value, handler);
+
+            if (obj instanceof String && slot.coloured()) {
+                obj = AdapterHandler.translateAlternateColorCodes(slot.colourChar(), ChatColor.COLOR_CHAR, (String) obj);
+            }
+
+            return obj;
+        }
+
+        /*
+         * Reads the field from its non-null value in the section. The handler is
+         * passed on every call rather than kept, as codecs are shared between
+         * factories and the caller's settings have to apply to nested values.
+         */
+        abstract Object readValue(Object raw, AdapterHandler handler);
+
+        abstract Object writeValue(Object value, AdapterHandler handler);
+    }
+
+    private static class ScalarSlot extends SlotCodec {
+        ScalarSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        Object readValue(Object raw, AdapterHandler handler) {
+            return slot().fieldClass().cast(raw);
+        }
+
+        @Override
+        Object writeValue(Object value, AdapterHandler handler) {
+            return value;
+        }
+    }
+
+    /*
+     * The primitive slots move the value through the accessor's unboxed
+     * variants; YAML scalars arrive boxed, but the field is not boxed again
+     * and written values box through the valueOf caches
+     */
+    private static final class IntSlot extends ScalarSlot {
+        IntSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        void read(Object instance, Object raw, AdapterHandler handler) {
+            slot().accessor().setInt(instance, (Integer) raw);
+        }
+
+        @Override
+        void write(Object instance, MemorySection section, AdapterHandler handler) {
+            section.set(slot().name(), slot().accessor().getInt(instance));
+        }
+    }
+
+    private static final class LongSlot extends ScalarSlot {
+        LongSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        void read(Object instance, Object raw, AdapterHandler handler) {
+            slot().accessor().setLong(instance, (Long) raw);
+        }
+
+        @Override
+        void write(Object instance, MemorySection section, AdapterHandler handler) {
+            section.set(slot().name(), slot().accessor().getLong(instance));
+        }
+    }
+
+    private static final class DoubleSlot extends ScalarSlot {
+        DoubleSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        void read(Object instance, Object raw, AdapterHandler handler) {
+            slot().accessor().setDouble(instance, (Double) raw);
+        }
+
+        @Override
+        void write(Object instance, MemorySection section, AdapterHandler handler) {
+            section.set(slot().name(), slot().accessor().getDouble(instance));
+        }
+    }
+
+    private static final class BooleanSlot extends ScalarSlot {
+        BooleanSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        void read(Object instance, Object raw, AdapterHandler handler) {
+            slot().accessor().setBoolean(instance, (Boolean) raw);
+        }
+
+        @Override
+        void write(Object instance, MemorySection section, AdapterHandler handler) {
+            section.set(slot().name(), slot().accessor().getBoolean(instance));
+        }
+    }
+
+    private static final class AdapterSlot extends SlotCodec {
+        private final ObjectAdapter<Object, ?> adapter;
+
+        AdapterSlot(FieldSlot slot) {
+            super(slot);
+            this.adapter = (ObjectAdapter<Object, ?>) slot.adapter();
+        }
+
+        @Override
+        Object readValue(Object raw, AdapterHandler handler) {
+            return adapter.readValue(raw);
+        }
+
+        @Override
+        Object writeValue(Object value, AdapterHandler handler) {
+            if (value.getClass() != slot().fieldClass()) {
+                return handler.adaptOut(value, slot().outClass(), slot().typeArgument(), slot().elementArgument());
+            }
+
+            return adapter.write(value);
+        }
+    }
+
+    private static final class BeanSlot extends SlotCodec {
+        // resolved lazily so self-referencing classes compile, read by any loading thread
+        private volatile ClassCodec<Object> codec;
+
+        BeanSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        private ClassCodec<Object> codec(AdapterHandler handler) {
+            ClassCodec<Object> codec = this.codec;
+
+            if (codec == null) {
+                this.codec = codec = handler.codecFor((Class<Object>) slot().fieldClass());
+            }
+
+            return codec;
+        }
+
+        @Override
+        Object readValue(Object raw, AdapterHandler handler) {
+            if (raw instanceof Map) { // parsed mapping from direct binding
+                return codec(handler).read(AdapterHandler.stringKeyed((Map<?, ?>) raw), slot().name(), handler);
+            }
+
+            return codec(handler).read(AdapterHandler.toSection(raw), slot().name(), handler);
+        }
+
+        @Override
+        Object writeValue(Object value, AdapterHandler handler) {
+            if (value.getClass() != slot().fieldClass()) {
+                return handler.adaptOut(value, slot().outClass(), slot().typeArgument(), slot().elementArgument());
+            }
+
+            return codec(handler).write(value, handler);
+        }
+    }
+
+    private static final class GenericSlot extends SlotCodec {
+        GenericSlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        Object readValue(Object raw, AdapterHandler handler) {
+            return handler.adaptValueIn(raw, slot().fieldClass(), slot().typeArgument(), slot().elementArgument(),
+                    slot().name());
+        }
+
+        @Override
+        Object writeValue(Object value, AdapterHandler handler) {
+            return handler.adaptOut(value, slot().outClass(), slot().typeArgument(), slot().elementArgument());
+        }
+    }
+
+    private static final class LazySlot extends SlotCodec {
+        LazySlot(FieldSlot slot) {
+            super(slot);
+        }
+
+        @Override
+        Object readValue(Object raw, AdapterHandler handler) {
+            return handler.readLazy(raw, slot().fieldClass(), slot().typeArgument(), slot().elementArgument());
+        }
+
+        @Override
+        Object writeValue(Object value, AdapterHandler handler) {
+            return handler.adaptOut(value, slot().outClass(), slot().typeArgument(), slot().elementArgument());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import xyz.mkotb.configapi.internal.FieldAccessor;
+
+import java.lang.reflect.Field;
+
+/*
+ * A single, pre-resolved field binding within a ClassBindingPlan.
+ * Everything that used to be looked up per object (renamed key, boxed class,
+ * generic type argument, annotations, adapter) is resolved once here.
+ */
+public final class FieldSlot {
+    private final FieldAccessor accessor;
+    private final String name;
+    private final Class<?> fieldClass;
+    private final Class<?> outClass;
+    private final Class<?> typeArgument;
+    private final Class<?> elementArgument;
+    private final ObjectAdapter<?, ?> adapter;
+    private final boolean required;
+    private final boolean coloured;
+    private final char colourChar;
+    private final boolean lazy;
+
+    FieldSlot(FieldAccessor accessor, String name, Class<?> fieldClass, Class<?> outClass, Class<?> typeArgument,
+              Class<?> elementArgument, ObjectAdapter<?, ?> adapter, boolean required, boolean coloured,
+              char colourChar, boolean lazy) {
+        this.accessor = accessor;
+        this.name = name;
+        this.fieldClass = fieldClass;
+        this.outClass = outClass;
+        this.typeArgument = typeArgument;
+        this.elementArgument = elementArgument;
+        this.adapter = adapter;
+        this.required = required;
+        this.coloured = coloured;
+        this.colourChar = colourChar;
+        this.lazy = lazy;
+    }
+
+    public Field field() {
+        return accessor.field();
+    }
+
+    public FieldAccessor accessor() {
+        return accessor;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /*
+     * The declared type of the field, boxed if primitive
+     */
+    public Class<?> fieldClass() {
+        return fieldClass;
+    }
+
+    /*
+     * The class the field's value is written out as
+     */
+    public Class<?> outClass() {
+        return outClass;
+    }
+
+    /*
+     * The generic element type for collections, or value type for maps
+     */
+    public Class<?> typeArgument() {
+        return typeArgument;
+    }
+
+    /*
+     * The type argument of typeArgument itself when it is a collection or map,
+     * such as Foo for a List<List<Foo>>, otherwise null
+     */
+    public Class<?> elementArgument() {
+        return elementArgument;
+    }
+
+    /*
+     * The adapter registered for the declared type, or null if there is none
+     */
+    public ObjectAdapter<?, ?> adapter() {
+        return adapter;
+    }
+
+    public boolean required() {
+        return required;
+    }
+
+    public boolean coloured() {
+        return coloured;
+    }
+
+    public char colourChar() {
+        return colourChar;
+    }
+
+    /*
+     * Whether the field is a List, Collection or Map bound through AdapterHandler#readLazy
+     */
+    public boolean lazy() {
+        return lazy;
+    }
+}
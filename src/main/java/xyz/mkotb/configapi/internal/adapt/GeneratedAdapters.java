@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.configuration.ConfigurationSection;
+import xyz.mkotb.configapi.ConfigSerializable;
+import xyz.mkotb.configapi.ex.ClassStructureException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+
+/*
+ * Locates adapters emitted by the config-api-processor for classes annotated with
+ * @ConfigSerializable. The generated adapter for com.example.Outer$Inner is
+ * com.example.Outer_InnerConfigAdapter and takes the AdapterHandler in its constructor.
+ */
+final class GeneratedAdapters {
+    static final String SUFFIX = "ConfigAdapter";
+    private static final ClassValue<Optional<Constructor<?>>> CONSTRUCTORS = new ClassValue<Optional<Constructor<?>>>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(Class<?> type) {
+            return lookup(type);
+        }
+    };
+
+    private GeneratedAdapters() {
+    }
+
+    /*
+     * Whether the processor generated an adapter for the class
+     */
+    static boolean exists(Class<?> cls) {
+        return CONSTRUCTORS.get(cls).isPresent();
+    }
+
+    /*
+     * A new generated adapter for the class, bound to handler, or null if none was generated.
+     * Adapters keep the handler they are created with, so are cached by the handler rather than here.
+     */
+    static <T> ObjectAdapter<T, ConfigurationSection> create(Class<T> cls, AdapterHandler handler) {
+        Optional<Constructor<?>> constructor = CONSTRUCTORS.get(cls);
+        return constructor.isPresent() ? (ObjectAdapter<T, ConfigurationSection>) instantiate(constructor.get(), handler) : null;
+    }
+
+    private static Optional<Constructor<?>> lookup(Class<?> cls) {
+        if (!cls.isAnnotationPresent(ConfigSerializable.class)) {
+            return Optional.empty();
+        }
+
+        String name = cls.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        String adapterName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + SUFFIX;
+
+        try {
+            Class<?> adapterClass = Class.forName(adapterName, true, cls.getClassLoader());
+            return Optional.of(adapterClass.getConstructor(AdapterHandler.class));
+        } catch (ClassNotFoundException | NoSuchMethodException ex) {
+            return Optional.empty(); // processor was not run, use the reflective path
+        }
+    }
+
+    private static ObjectAdapter<?, ?> instantiate(Constructor<?> constructor, AdapterHandler handler) {
+        try {
+            return (ObjectAdapter<?, ?>) constructor.newInstance(handler);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            throw new ClassStructureException("Could not create generated adapter " +
+                    constructor.getDeclaringClass().getName(), ex);
+        }
+    }
+}
@@ -16,8 +16,20 @@
 package xyz.mkotb.configapi.internal.adapt;
 
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 
 public interface ObjectAdapter<I, O> {
     I read(String key, ConfigurationSection section);
     O write(I obj);
+
+    /*
+     * Reads a raw parsed value directly. Adapters which don't override this
+     * have the value placed in a throwaway section and read from there.
+     */
+    default I readValue(Object raw) {
+        ConfigurationSection dummySection = new MemoryConfiguration();
+
+        dummySection.set("dummy", raw);
+        return read("dummy", dummySection);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import xyz.mkotb.configapi.ex.InvalidConfigurationException;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+ * Primitive array codecs used by the array adapters. Reading copies parsed
+ * numbers straight into the primitive array and writing hands the dumper a
+ * read-only list view instead of boxing every element into an ArrayList
+ */
+public final class PrimitiveLists {
+    private PrimitiveLists() {
+    }
+
+    /*
+     * Whether this component type has a specialised codec
+     */
+    public static boolean supports(Class<?> component) {
+        return component == int.class || component == long.class ||
+                component == double.class || component == boolean.class;
+    }
+
+    /*
+     * Reads the parsed values into a new array of component. Values have to fit
+     * the component type without rounding or truncation; key names the array
+     * in the message otherwise, and may be null.
+     */
+    public static Object read(Class<?> component, Collection<?> values, String key) {
+        int i = 0;
+
+        if (component == int.class) {
+            int[] array = new int[values.size()];
+
+            for (Object value : values) {
+                long integral = integral(value, i, key, "int");
+
+                if (integral != (int) integral) {
+                    throw invalid(value, i, key, "int");
+                }
+
+                array[i++] = (int) integral;
+            }
+
+            return array;
+        }
+
+        if (component == long.class) {
+            long[] array = new long[values.size()];
+
+            for (Object value : values) {
+                array[i] = integral(value, i, key, "long");
+                i++;
+            }
+
+            return array;
+        }
+
+        if (component == double.class) {
+            double[] array = new double[values.size()];
+
+            for (Object value : values) {
+                if (!(notNull(value, i, key) instanceof Number)) {
+                    throw invalid(value, i, key, "double");
+                }
+
+                array[i++] = ((Number) value).doubleValue();
+            }
+
+            return array;
+        }
+
+        if (component == boolean.class) {
+            boolean[] array = new boolean[values.size()];
+
+            for (Object value : values) {
+                if (!(notNull(value, i, key) instanceof Boolean)) {
+                    throw invalid(value, i, key, "boolean");
+                }
+
+                array[i++] = (Boolean) value;
+            }
+
+            return array;
+        }
+
+        throw new IllegalArgumentException("No primitive codec for " + component.getName());
+    }
+
+    private static long integral(Object value, int index, String key, String type) {
+        notNull(value, index, key);
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            return ((BigInteger) value).longValue();
+        }
+
+        throw invalid(value, index, key, type);
+    }
+
+    private static Object notNull(Object value, int index, String key) {
+        if (value == null) {
+            throw new InvalidConfigurationException("Element " + (index + 1) + " of " + describe(key) + " is null");
+        }
+
+        return value;
+    }
+
+    private static InvalidConfigurationException invalid(Object value, int index, String key, String type) {
+        return new InvalidConfigurationException("Element " + (index + 1) + " of " + describe(key) + ", " + value +
+                ", is not a valid " + type);
+    }
+
+    private static String describe(String key) {
+        return key == null ? "an array" : key;
+    }
+
+    /*
+     * Wraps a copy of the array, so the written value is a snapshot which later
+     * changes to the field cannot leak into
+     */
+    public static List<?> view(Object array) {
+        if (array instanceof int[]) {
+            return new IntList(((int[]) array).clone());
+        }
+
+        if (array instanceof long[]) {
+            return new LongList(((long[]) array).clone());
+        }
+
+        if (array instanceof double[]) {
+            return new DoubleList(((double[]) array).clone());
+        }
+
+        if (array instanceof boolean[]) {
+            return new BooleanList(((boolean[]) array).clone());
+        }
+
+        throw new IllegalArgumentException("No primitive codec for " + array.getClass().getName());
+    }
+
+    /*
+     * Wraps the array as is, for callers which have already taken their own copy
+     */
+    public static List<Integer> wrap(int[] array) {
+        return new IntList(array);
+    }
+
+    public static List<Long> wrap(long[] array) {
+        return new LongList(array);
+    }
+
+    private static final class IntList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] array;
+
+        IntList(int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private static final class LongList extends AbstractList<Long> implements RandomAccess {
+        private final long[] array;
+
+        LongList(long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Long get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private static final class DoubleList extends AbstractList<Double> implements RandomAccess {
+        private final double[] array;
+
+        DoubleList(double[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Double get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private static final class BooleanList extends AbstractList<Boolean> implements RandomAccess {
+        private final boolean[] array;
+
+        BooleanList(boolean[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Boolean get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Conversions of raw parsed values which mirror MemorySection's typed getters
+ * (getInt, getString, getIntegerList, ...), for adapters reading values directly
+ */
+public final class RawValues {
+    private RawValues() {
+    }
+
+    public static String toString(Object raw) {
+        return raw == null ? null : raw.toString();
+    }
+
+    public static int toInt(Object raw) {
+        return raw instanceof Number ? ((Number) raw).intValue() : 0;
+    }
+
+    public static long toLong(Object raw) {
+        return raw instanceof Number ? ((Number) raw).longValue() : 0L;
+    }
+
+    public static boolean toBoolean(Object raw) {
+        return raw instanceof Boolean ? (Boolean) raw : false;
+    }
+
+    /*
+     * Same element rules as getIntegerList, but filled straight into an int[]
+     */
+    public static int[] toIntArray(Object raw) {
+        if (!(raw instanceof List)) {
+            return new int[0];
+        }
+
+        List<?> list = (List<?>) raw;
+        int[] result = new int[list.size()];
+        int size = 0;
+
+        for (Object object : list) {
+            if (object instanceof Number) {
+                result[size++] = ((Number) object).intValue();
+            } else if (object instanceof String) {
+                try {
+                    result[size++] = Integer.parseInt((String) object);
+                } catch (NumberFormatException ignored) {
+                }
+            } else if (object instanceof Character) {
+                result[size++] = (Character) object;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /*
+     * Same element rules as getLongList, but filled straight into a long[]
+     */
+    public static long[] toLongArray(Object raw) {
+        if (!(raw instanceof List)) {
+            return new long[0];
+        }
+
+        List<?> list = (List<?>) raw;
+        long[] result = new long[list.size()];
+        int size = 0;
+
+        for (Object object : list) {
+            if (object instanceof Number) {
+                result[size++] = ((Number) object).longValue();
+            } else if (object instanceof String) {
+                try {
+                    result[size++] = Long.parseLong((String) object);
+                } catch (NumberFormatException ignored) {
+                }
+            } else if (object instanceof Character) {
+                result[size++] = (Character) object;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
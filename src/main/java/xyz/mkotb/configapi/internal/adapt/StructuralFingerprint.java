@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import xyz.mkotb.configapi.internal.adapt.impl.DateAdapter;
+import xyz.mkotb.configapi.internal.adapt.impl.SQLDateAdapter;
+import xyz.mkotb.configapi.internal.adapt.impl.UUIDAdapter;
+import xyz.mkotb.configapi.internal.adapt.impl.atomic.AtomicBooleanAdapter;
+import xyz.mkotb.configapi.internal.adapt.impl.atomic.AtomicIntegerArrayAdapter;
+import xyz.mkotb.configapi.internal.adapt.impl.atomic.AtomicLongArrayAdapter;
+import xyz.mkotb.configapi.internal.naming.NamingStrategy;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Everything about a value which ends up in the saved document, recorded by
+ * walking the object graph the same way adaptOut does but without building the
+ * adapted tree. Matching is exact: scalars are compared by value rather than
+ * by a hash, so a value which matches its fingerprint writes out the same.
+ */
+public final class StructuralFingerprint {
+    private static final int LIMIT = 1 << 14; // past this many entries the value is cheaper to just rewrite
+    private static final Object NULL = new Object();
+
+    private final long[] numbers;
+    private final Object[] tokens;
+
+    private StructuralFingerprint(long[] numbers, Object[] tokens) {
+        this.numbers = numbers;
+        this.tokens = tokens;
+    }
+
+    /*
+     * Returns null when the value is too large to fingerprint, or holds values
+     * which can't be compared without being adapted
+     */
+    public static StructuralFingerprint of(Object value, NamingStrategy strategy) {
+        Recorder recorder = new Recorder();
+        walk(value, strategy, recorder);
+
+        if (recorder.stopped()) {
+            return null;
+        }
+
+        return new StructuralFingerprint(Arrays.copyOf(recorder.numbers, recorder.numberCount),
+                Arrays.copyOf(recorder.tokens, recorder.tokenCount));
+    }
+
+    public boolean matches(Object value, NamingStrategy strategy) {
+        Matcher matcher = new Matcher(this);
+        walk(value, strategy, matcher);
+        return !matcher.stopped() && matcher.numberCount == numbers.length && matcher.tokenCount == tokens.length;
+    }
+
+    /*
+     * Every value starts with a token which decides the shape of what follows,
+     * so equal records mean equal values
+     */
+    private static void walk(Object value, NamingStrategy strategy, Sink sink) {
+        if (value == null) {
+            sink.token(NULL);
+            return;
+        }
+
+        if (value instanceof String || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            sink.token(value);
+            return;
+        }
+
+        Class<?> type = value.getClass();
+
+        if (type == Double.class || type == Float.class) {
+            sink.token(type);
+            sink.number(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            return;
+        }
+
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class ||
+                type == AtomicInteger.class || type == AtomicLong.class) {
+            sink.token(type);
+            sink.number(((Number) value).longValue());
+            return;
+        }
+
+        if (value instanceof ConfigurationSection) { // sections only have identity equality
+            walkMap(((ConfigurationSection) value).getValues(false), strategy, sink);
+            return;
+        }
+
+        switch (AdapterHandler.kindOf(type)) {
+            case ADAPTED:
+                walkAdapted(value, strategy, sink);
+                return;
+            case COLLECTION:
+                walkCollection((Collection<?>) value, strategy, sink);
+                return;
+            case MAP:
+                walkMap((Map<?, ?>) value, strategy, sink);
+                return;
+            case ARRAY:
+                walkArray(value, strategy, sink);
+                return;
+            case SERIALIZABLE:
+                sink.token(type);
+                walkMap(((ConfigurationSerializable) value).serialize(), strategy, sink);
+                return;
+            default:
+                walkBean(value, strategy, sink);
+        }
+    }
+
+    /*
+     * The built-in adapters' values are read directly, anything else is adapted
+     * and its output walked instead
+     */
+    private static void walkAdapted(Object value, NamingStrategy strategy, Sink sink) {
+        ObjectAdapter<?, ?> adapter = AdapterHandler.adapterFor(value.getClass());
+        sink.token(value.getClass());
+
+        if (adapter instanceof UUIDAdapter) { // immutable
+            sink.token(value);
+        } else if (adapter instanceof DateAdapter || adapter instanceof SQLDateAdapter) {
+            sink.number(((Date) value).getTime());
+        } else if (adapter instanceof AtomicBooleanAdapter) {
+            sink.number(((AtomicBoolean) value).get() ? 1 : 0);
+        } else if (adapter instanceof AtomicIntegerArrayAdapter) {
+            AtomicIntegerArray array = (AtomicIntegerArray) value;
+            sink.number(array.length());
+
+            for (int i = 0; i < array.length() && !sink.stopped(); i++) {
+                sink.number(array.get(i));
+            }
+        } else if (adapter instanceof AtomicLongArrayAdapter) {
+            AtomicLongArray array = (AtomicLongArray) value;
+            sink.number(array.length());
+
+            for (int i = 0; i < array.length() && !sink.stopped(); i++) {
+                sink.number(array.get(i));
+            }
+        } else {
+            Object written = ((ObjectAdapter<Object, ?>) adapter).write(value);
+
+            if (written == value) { // would only ever be compared with itself
+                sink.stop();
+            } else {
+                walk(written, strategy, sink);
+            }
+        }
+    }
+
+    private static void walkBean(Object value, NamingStrategy strategy, Sink sink) {
+        ClassBindingPlan plan = ClassBindingPlan.of(value.getClass(), strategy);
+        sink.token(value.getClass());
+
+        for (FieldSlot slot : plan.slots()) {
+            if (sink.stopped()) {
+                return;
+            }
+
+            walk(slot.accessor().get(value), strategy, sink);
+        }
+
+        if (plan.selfAccessor() != null) {
+            walk(plan.selfAccessor().get(value), strategy, sink);
+        }
+    }
+
+    private static void walkCollection(Collection<?> collection, NamingStrategy strategy, Sink sink) {
+        sink.token(Collection.class);
+        sink.number(collection.size());
+
+        for (Object element : collection) {
+            if (sink.stopped()) {
+                return;
+            }
+
+            walk(element, strategy, sink);
+        }
+    }
+
+    private static void walkMap(Map<?, ?> map, NamingStrategy strategy, Sink sink) {
+        sink.token(Map.class);
+        sink.number(map.size());
+
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (sink.stopped()) {
+                return;
+            }
+
+            walk(entry.getKey(), strategy, sink);
+            walk(entry.getValue(), strategy, sink);
+        }
+    }
+
+    private static void walkArray(Object array, NamingStrategy strategy, Sink sink) {
+        int length = Array.getLength(array);
+        sink.token(array.getClass());
+        sink.number(length);
+
+        if (array instanceof int[]) {
+            for (int element : (int[]) array) {
+                sink.number(element);
+            }
+        } else if (array instanceof long[]) {
+            for (long element : (long[]) array) {
+                sink.number(element);
+            }
+        } else if (array instanceof double[]) {
+            for (double element : (double[]) array) {
+                sink.number(Double.doubleToRawLongBits(element));
+            }
+        } else if (array instanceof Object[]) {
+            for (Object element : (Object[]) array) {
+                if (sink.stopped()) {
+                    return;
+                }
+
+                walk(element, strategy, sink);
+            }
+        } else { // remaining primitive arrays are rare, box them
+            for (int i = 0; i < length && !sink.stopped(); i++) {
+                walk(Array.get(array, i), strategy, sink);
+            }
+        }
+    }
+
+    private static abstract class Sink {
+        int numberCount;
+        int tokenCount;
+        private boolean stopped;
+
+        abstract void number(long value);
+
+        abstract void token(Object value);
+
+        final void stop() {
+            stopped = true;
+        }
+
+        final boolean stopped() {
+            return stopped;
+        }
+    }
+
+    private static final class Recorder extends Sink {
+        long[] numbers = new long[16];
+        Object[] tokens = new Object[16];
+
+        @Override
+        void number(long value) {
+            if (numberCount == LIMIT) {
+                stop();
+                return;
+            }
+
+            if (numberCount == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numberCount * 2);
+            }
+
+            numbers[numberCount++] = value;
+        }
+
+        @Override
+        void token(Object value) {
+            if (tokenCount == LIMIT) {
+                stop();
+                return;
+            }
+
+            if (tokenCount == tokens.length) {
+                tokens = Arrays.copyOf(tokens, tokenCount * 2);
+            }
+
+            tokens[tokenCount++] = value;
+        }
+    }
+
+    private static final class Matcher extends Sink {
+        private final StructuralFingerprint expected;
+
+        Matcher(StructuralFingerprint expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        void number(long value) {
+            if (stopped() || numberCount == expected.numbers.length || expected.numbers[numberCount++] != value) {
+                stop();
+            }
+        }
+
+        @Override
+        void token(Object value) {
+            if (stopped() || tokenCount == expected.tokens.length || !Objects.equals(expected.tokens[tokenCount++], value)) {
+                stop();
+            }
+        }
+    }
+}
@@ -16,15 +16,17 @@
 package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.MemorySection;
 import xyz.mkotb.configapi.internal.InternalsHelper;
 import xyz.mkotb.configapi.internal.SerializableMemorySection;
 import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+import xyz.mkotb.configapi.internal.adapt.ClassKind;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.PrimitiveLists;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ArrayAdapter<E> implements ObjectAdapter<Object, Object> {
@@ -42,22 +44,31 @@ public class ArrayAdapter<E> implements ObjectAdapter<Object, Object> {
 
     @Override
     public Object read(String key, ConfigurationSection section) {
-        List<?> list;
+        String path = section.getCurrentPath();
+        return readValue(section.get(key), path == null || path.isEmpty() ? key : path + "." + key);
+    }
+
+    @Override
+    public Object readValue(Object raw) {
+        return readValue(raw, null);
+    }
 
-        if (section.isConfigurationSection(key)) {
-            list = new ArrayList<>(section.getConfigurationSection(key).getValues(false).values());
-        } else {
-            list = section.getList(key);
+    /*
+     * key names the array in messages about invalid elements, and may be null
+     */
+    public Object readValue(Object raw, String key) {
+        Collection<?> list = CollectionAdapter.elementsOf(raw);
+
+        if (PrimitiveLists.supports(type)) {
+            return PrimitiveLists.read(type, list, key);
         }
 
         Object array = Array.newInstance(type, list.size());
+        boolean passThrough = type.isPrimitive() || type == String.class || AdapterHandler.kindOf(type) == ClassKind.BOX;
+        int i = 0;
 
-        for (int i = 0; i < list.size(); i++) {
-            Object obj = list.get(i);
-            ConfigurationSection dummySection = new MemoryConfiguration();
-
-            dummySection.set("dummy", obj);
-            Array.set(array, i, handler.adaptIn(dummySection, "dummy", obj.getClass()));
+        for (Object obj : list) {
+            Array.set(array, i++, passThrough ? obj : handler.adaptValueIn(obj, type));
         }
 
         return array;
@@ -65,6 +76,10 @@ public class ArrayAdapter<E> implements ObjectAdapter<Object, Object> {
 
     @Override
     public Object write(Object obj) {
+        if (PrimitiveLists.supports(type)) {
+            return PrimitiveLists.view(obj);
+        }
+
         int length = Array.getLength(obj);
 
         if (!AdapterHandler.isSerializable(type) && !type.isPrimitive()) {
@@ -16,7 +16,6 @@
 package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.MemorySection;
 import xyz.mkotb.configapi.ex.InternalProcessingException;
 import xyz.mkotb.configapi.internal.InternalsHelper;
@@ -30,17 +29,28 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class CollectionAdapter<E> implements ObjectAdapter<Collection, Object> {
     private final Class<E> type;
+    private final Class<?> argument;
     private final Class<? extends Collection> implementationClass;
     private final AdapterHandler handler;
 
-    private CollectionAdapter(Class<E> type, Class<? extends Collection> collectionClass, AdapterHandler handler) {
+    private CollectionAdapter(Class<E> type, Class<?> argument, Class<? extends Collection> collectionClass,
+                              AdapterHandler handler) {
         this.type = type;
+        this.argument = argument;
         this.implementationClass = findImplementation(collectionClass);
         this.handler = handler;
     }
 
     public static <E> CollectionAdapter<E> create(Class<E> type, Class<? extends Collection> collectionClass, AdapterHandler handler) {
-        return new CollectionAdapter<>(type, collectionClass, handler);
+        return new CollectionAdapter<>(type, null, collectionClass, handler);
+    }
+
+    /*
+     * argument is the element type of elements which are collections or maps themselves
+     */
+    public static <E> CollectionAdapter<E> create(Class<E> type, Class<?> argument,
+                                                  Class<? extends Collection> collectionClass, AdapterHandler handler) {
+        return new CollectionAdapter<>(type, argument, collectionClass, handler);
     }
 
     private static Class<? extends Collection> findImplementation(Class<? extends Collection> cls) {
@@ -57,14 +67,13 @@ public class CollectionAdapter<E> implements ObjectAdapter<Collection, Object> {
 
     @Override
     public Collection read(String key, ConfigurationSection section) {
-        Collection collection;
-        List<?> originalList;
+        return readValue(section.get(key));
+    }
 
-        if (section.isConfigurationSection(key)) {
-            originalList = new ArrayList<>(section.getConfigurationSection(key).getValues(false).values());
-        } else {
-            originalList = section.getList(key);
-        }
+    @Override
+    public Collection readValue(Object raw) {
+        Collection collection;
+        Collection<?> originalList = elementsOf(raw);
 
         try {
             collection = implementationClass.getDeclaredConstructor(int.class).newInstance(originalList.size());
@@ -73,15 +82,27 @@ public class CollectionAdapter<E> implements ObjectAdapter<Collection, Object> {
         }
 
         for (Object obj: originalList) {
-            ConfigurationSection dummySection = new MemoryConfiguration();
-
-            dummySection.set("dummy", obj);
-            collection.add(handler.adaptIn(dummySection, "dummy", type));
+            collection.add(handler.adaptValueIn(obj, type, argument));
         }
 
         return collection;
     }
 
+    /*
+     * Collections of objects are written as sections keyed by index, others as lists
+     */
+    static Collection<?> elementsOf(Object raw) {
+        if (raw instanceof ConfigurationSection) {
+            return ((ConfigurationSection) raw).getValues(false).values();
+        }
+
+        if (raw instanceof Map) {
+            return ((Map<?, ?>) raw).values();
+        }
+
+        return (List<?>) raw;
+    }
+
     @Override // can't use streams due to abstraction
     public Object write(Collection collection) {
         if (!AdapterHandler.isSerializable(type) && !type.isPrimitive()) {
@@ -89,7 +110,7 @@ public class CollectionAdapter<E> implements ObjectAdapter<Collection, Object> {
             int i = 0;
 
             for (Object o : collection) {
-                section.set(String.valueOf(++i), handler.adaptOut(o, AdapterHandler.outClass(type)));
+                section.set(String.valueOf(++i), handler.adaptOut(o, AdapterHandler.outClass(type), argument));
             }
 
             return section;
@@ -98,7 +119,7 @@ public class CollectionAdapter<E> implements ObjectAdapter<Collection, Object> {
         List<Object> list = new ArrayList<>(collection.size());
 
         for (Object o : collection) {
-            list.add(handler.adaptOut(o, AdapterHandler.outClass(type)));
+            list.add(handler.adaptOut(o, AdapterHandler.elementOutClass(type), argument));
         }
 
         return list;
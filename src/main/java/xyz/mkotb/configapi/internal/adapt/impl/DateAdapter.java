@@ -17,6 +17,7 @@ package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -28,9 +29,14 @@ public class DateAdapter implements ObjectAdapter<Date, String> {
             = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US);
 
     @Override
-    public synchronized Date read(String key, ConfigurationSection section) {
+    public Date read(String key, ConfigurationSection section) {
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public synchronized Date readValue(Object raw) {
         try {
-            return enUsFormat.parse(section.getString(key));
+            return enUsFormat.parse(RawValues.toString(raw));
         } catch (ParseException ignored) {
             return new Date();
         }
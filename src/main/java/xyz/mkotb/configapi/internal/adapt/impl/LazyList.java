@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt.impl;
+
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * List over parsed values which adapts each element the first time it is read.
+ * Reads are safe from any thread and always see the same element instance, even
+ * while the first structural change adapts everything; from then on it continues
+ * as a plain ArrayList, with an ArrayList's thread safety.
+ */
+public final class LazyList<E> extends AbstractList<E> implements RandomAccess {
+    private static final Object NULL = new Object();
+    private final Class<E> type;
+    private final Class<?> argument;
+    private final AdapterHandler handler;
+    // dropped once materialized, after delegate is set
+    private volatile Object[] raw;
+    private volatile AtomicReferenceArray<Object> adapted;
+    private volatile List<E> delegate;
+
+    private LazyList(Object[] raw, Class<E> type, Class<?> argument, AdapterHandler handler) {
+        this.raw = raw;
+        this.type = type;
+        this.argument = argument;
+        this.handler = handler;
+        this.adapted = new AtomicReferenceArray<>(raw.length);
+    }
+
+    /*
+     * argument is the element type of elements which are collections or maps themselves
+     */
+    public static <E> LazyList<E> read(Object raw, Class<E> type, Class<?> argument, AdapterHandler handler) {
+        return new LazyList<>(CollectionAdapter.elementsOf(raw).toArray(), type, argument, handler);
+    }
+
+    @Override
+    public E get(int index) {
+        Object[] raw = this.raw;
+        AtomicReferenceArray<Object> adapted = this.adapted;
+
+        if (raw == null || adapted == null) {
+            return delegate.get(index);
+        }
+
+        Object element = adapted.get(index);
+
+        if (element == null) {
+            Object value = handler.adaptValueIn(raw[index], type, argument);
+
+            if (!adapted.compareAndSet(index, null, value == null ? NULL : value)) {
+                element = adapted.get(index);
+            } else {
+                element = value == null ? NULL : value;
+            }
+        }
+
+        return element == NULL ? null : (E) element;
+    }
+
+    @Override
+    public int size() {
+        Object[] raw = this.raw;
+        return raw != null ? raw.length : delegate.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        AtomicReferenceArray<Object> adapted = this.adapted;
+
+        if (adapted == null) {
+            return delegate.set(index, element);
+        }
+
+        E previous = get(index);
+        adapted.set(index, element == null ? NULL : element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        materialize().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        E previous = materialize().remove(index);
+        modCount++;
+        return previous;
+    }
+
+    /*
+     * Whether the element at this index has been adapted yet
+     */
+    public boolean isAdapted(int index) {
+        AtomicReferenceArray<Object> adapted = this.adapted;
+        return adapted == null || adapted.get(index) != null;
+    }
+
+    private List<E> materialize() {
+        List<E> list = delegate;
+
+        if (list == null) {
+            int size = raw.length;
+            list = new ArrayList<>(size + 1);
+
+            for (int i = 0; i < size; i++) {
+                list.add(get(i));
+            }
+
+            delegate = list;
+            raw = null;
+            adapted = null;
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt.impl;
+
+import org.bukkit.configuration.ConfigurationSection;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Map over parsed values which adapts each value the first time it is read.
+ * Keys are known up front and iterate in the same order as the eagerly bound
+ * HashMap would; reads are safe from any thread, writes are as a HashMap's.
+ */
+public final class LazyMap<V> extends AbstractMap<String, V> {
+    private static final Object NULL = new Object();
+    private final Class<V> type;
+    private final Class<?> argument;
+    private final AdapterHandler handler;
+    private final Map<String, Object> raw = new HashMap<>();
+    private final Map<String, Object> adapted = new ConcurrentHashMap<>();
+    private Set<Entry<String, V>> entrySet;
+
+    private LazyMap(Map<?, ?> values, Class<V> type, Class<?> argument, AdapterHandler handler) {
+        this.type = type;
+        this.argument = argument;
+        this.handler = handler;
+        values.forEach((k, v) -> raw.put(k.toString(), v));
+    }
+
+    /*
+     * argument is the element type of values which are collections or maps themselves
+     */
+    public static <V> LazyMap<V> read(Object raw, Class<V> type, Class<?> argument, AdapterHandler handler) {
+        Map<?, ?> values = raw instanceof ConfigurationSection ?
+                ((ConfigurationSection) raw).getValues(false) : (Map<?, ?>) raw;
+        return new LazyMap<>(values, type, argument, handler);
+    }
+
+    @Override
+    public V get(Object key) {
+        return raw.containsKey(key) ? resolve((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return raw.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return raw.size();
+    }
+
+    @Override
+    public V put(String key, V value) {
+        V previous = get(key);
+        raw.put(key, null);
+        adapted.put(key, value == null ? NULL : value);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V previous = get(key);
+        raw.remove(key);
+        adapted.remove(key);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        raw.clear();
+        adapted.clear();
+    }
+
+    /*
+     * Whether the value under this key has been adapted yet
+     */
+    public boolean isAdapted(String key) {
+        return adapted.containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+
+        return entrySet;
+    }
+
+    private V resolve(String key) {
+        Object value = adapted.get(key);
+
+        if (value == null) {
+            Object created = handler.adaptValueIn(raw.get(key), type, argument);
+            Object previous = adapted.putIfAbsent(key, created == null ? NULL : created);
+            value = previous != null ? previous : (created == null ? NULL : created);
+        }
+
+        return value == NULL ? null : (V) value;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            Iterator<String> keys = raw.keySet().iterator();
+
+            return new Iterator<Entry<String, V>>() {
+                private String current;
+
+                @Override
+                public boolean hasNext() {
+                    return keys.hasNext();
+                }
+
+                @Override
+                public Entry<String, V> next() {
+                    current = keys.next();
+                    return new LazyEntry<>(LazyMap.this, current);
+                }
+
+                @Override
+                public void remove() {
+                    keys.remove();
+                    adapted.remove(current);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return raw.size();
+        }
+    }
+
+    /*
+     * Adapts its value through the map when read, and writes through to it
+     */
+    private static final class LazyEntry<V> implements Entry<String, V> {
+        private final LazyMap<V> map;
+        private final String key;
+
+        LazyEntry(LazyMap<V> map, String key) {
+            this.map = map;
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return map.resolve(key);
+        }
+
+        @Override
+        public V setValue(V value) {
+            return map.put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+
+            Entry<?, ?> other = (Entry<?, ?>) obj;
+            return key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.MemorySection;
 import xyz.mkotb.configapi.internal.InternalsHelper;
 import xyz.mkotb.configapi.internal.SerializableMemorySection;
@@ -28,28 +27,38 @@ import java.util.Map;
 
 public class MapAdapter<V> implements ObjectAdapter<Map, ConfigurationSection> {
     private final Class<V> valueClass;
+    private final Class<?> argument;
     private final AdapterHandler handler;
 
-    private MapAdapter(Class<V> valueClass, AdapterHandler handler) {
+    private MapAdapter(Class<V> valueClass, Class<?> argument, AdapterHandler handler) {
         this.valueClass = valueClass;
+        this.argument = argument;
         this.handler = handler;
     }
 
     public static <V> MapAdapter<V> create(Class<V> valueClass, AdapterHandler handler) {
-        return new MapAdapter<>(valueClass, handler);
+        return new MapAdapter<>(valueClass, null, handler);
+    }
+
+    /*
+     * argument is the element type of values which are collections or maps themselves
+     */
+    public static <V> MapAdapter<V> create(Class<V> valueClass, Class<?> argument, AdapterHandler handler) {
+        return new MapAdapter<>(valueClass, argument, handler);
     }
 
     @Override
     public Map read(String key, ConfigurationSection section) {
-        ConfigurationSection originalMap = section.getConfigurationSection(key);
-        Map map = new HashMap();
+        return readValue(section.get(key));
+    }
 
-        originalMap.getValues(false).forEach((k, v) -> {
-            ConfigurationSection dummySection = new MemoryConfiguration();
+    @Override
+    public Map readValue(Object raw) {
+        Map<?, ?> originalMap = raw instanceof ConfigurationSection ?
+                ((ConfigurationSection) raw).getValues(false) : (Map<?, ?>) raw;
+        Map map = new HashMap();
 
-            dummySection.set("dummy", v);
-            map.put(k, handler.adaptIn(dummySection, "dummy", valueClass));
-        });
+        originalMap.forEach((k, v) -> map.put(k.toString(), handler.adaptValueIn(v, valueClass, argument)));
 
         return map;
     }
@@ -57,7 +66,7 @@ public class MapAdapter<V> implements ObjectAdapter<Map, ConfigurationSection> {
     @Override
     public ConfigurationSection write(Map obj) {
         MemorySection memorySection = InternalsHelper.newInstanceWithoutInit(SerializableMemorySection.class);
-        obj.forEach((k, v) -> memorySection.set(k.toString(), handler.adaptOut(v, AdapterHandler.outClass(valueClass))));
+        obj.forEach((k, v) -> memorySection.set(k.toString(), handler.adaptOut(v, AdapterHandler.elementOutClass(valueClass), argument)));
         return memorySection;
     }
 }
@@ -17,6 +17,7 @@ package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.sql.Date;
 import java.text.DateFormat;
@@ -28,8 +29,13 @@ public class SQLDateAdapter implements ObjectAdapter<Date, String> {
 
     @Override
     public Date read(String key, ConfigurationSection section) {
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public synchronized Date readValue(Object raw) {
         try {
-            return new Date(format.parse(section.getString(key)).getTime());
+            return new Date(format.parse(RawValues.toString(raw)).getTime());
         } catch (ParseException ex) {
             return new Date(System.currentTimeMillis());
         }
@@ -17,13 +17,19 @@ package xyz.mkotb.configapi.internal.adapt.impl;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.util.UUID;
 
 public class UUIDAdapter implements ObjectAdapter<UUID, String> {
     @Override
     public UUID read(String key, ConfigurationSection section) {
-        return UUID.fromString(section.getString(key));
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public UUID readValue(Object raw) {
+        return UUID.fromString(RawValues.toString(raw));
     }
 
     @Override
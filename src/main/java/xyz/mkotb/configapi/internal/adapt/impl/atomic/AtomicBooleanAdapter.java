@@ -17,6 +17,7 @@ package xyz.mkotb.configapi.internal.adapt.impl.atomic;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -24,7 +25,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class AtomicBooleanAdapter implements ObjectAdapter<AtomicBoolean, Boolean> {
     @Override
     public AtomicBoolean read(String key, ConfigurationSection section) {
-        return new AtomicBoolean(section.getBoolean(key));
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public AtomicBoolean readValue(Object raw) {
+        return new AtomicBoolean(RawValues.toBoolean(raw));
     }
 
     @Override
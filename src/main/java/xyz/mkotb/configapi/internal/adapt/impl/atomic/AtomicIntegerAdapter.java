@@ -17,13 +17,19 @@ package xyz.mkotb.configapi.internal.adapt.impl.atomic;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class AtomicIntegerAdapter implements ObjectAdapter<AtomicInteger, Integer> {
     @Override
     public AtomicInteger read(String key, ConfigurationSection section) {
-        return new AtomicInteger(section.getInt(key));
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public AtomicInteger readValue(Object raw) {
+        return new AtomicInteger(RawValues.toInt(raw));
     }
 
     @Override
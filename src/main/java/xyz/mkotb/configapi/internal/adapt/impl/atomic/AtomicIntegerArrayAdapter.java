@@ -17,25 +17,31 @@ package xyz.mkotb.configapi.internal.adapt.impl.atomic;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.PrimitiveLists;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class AtomicIntegerArrayAdapter implements ObjectAdapter<AtomicIntegerArray, List<Integer>> {
     @Override
     public AtomicIntegerArray read(String key, ConfigurationSection section) {
-        return new AtomicIntegerArray(section.getIntegerList(key).stream().mapToInt((e) -> e).toArray());
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public AtomicIntegerArray readValue(Object raw) {
+        return new AtomicIntegerArray(RawValues.toIntArray(raw));
     }
 
     @Override
     public List<Integer> write(AtomicIntegerArray obj) {
-        List<Integer> list = new ArrayList<>();
+        int[] snapshot = new int[obj.length()];
 
-        for (int i = 0; i < obj.length(); i++) {
-            list.add(obj.get(i));
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = obj.get(i);
         }
 
-        return list;
+        return PrimitiveLists.wrap(snapshot);
     }
 }
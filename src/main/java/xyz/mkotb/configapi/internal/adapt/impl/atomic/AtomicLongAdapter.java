@@ -17,13 +17,19 @@ package xyz.mkotb.configapi.internal.adapt.impl.atomic;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 import java.util.concurrent.atomic.AtomicLong;
 
 public class AtomicLongAdapter implements ObjectAdapter<AtomicLong, Long> {
     @Override
     public AtomicLong read(String key, ConfigurationSection section) {
-        return new AtomicLong(section.getLong(key));
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public AtomicLong readValue(Object raw) {
+        return new AtomicLong(RawValues.toLong(raw));
     }
 
     @Override
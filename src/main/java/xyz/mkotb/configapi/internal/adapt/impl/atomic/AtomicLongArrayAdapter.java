@@ -17,25 +17,31 @@ package xyz.mkotb.configapi.internal.adapt.impl.atomic;
 
 import org.bukkit.configuration.ConfigurationSection;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.PrimitiveLists;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 public class AtomicLongArrayAdapter implements ObjectAdapter<AtomicLongArray, List<Long>> {
     @Override
     public AtomicLongArray read(String key, ConfigurationSection section) {
-        return new AtomicLongArray(section.getLongList(key).stream().mapToLong((e) -> e).toArray());
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public AtomicLongArray readValue(Object raw) {
+        return new AtomicLongArray(RawValues.toLongArray(raw));
     }
 
     @Override
     public List<Long> write(AtomicLongArray obj) {
-        List<Long> list = new ArrayList<>();
+        long[] snapshot = new long[obj.length()];
 
-        for (int i = 0; i < obj.length(); i++) {
-            list.add(obj.get(i));
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = obj.get(i);
         }
 
-        return list;
+        return PrimitiveLists.wrap(snapshot);
     }
 }
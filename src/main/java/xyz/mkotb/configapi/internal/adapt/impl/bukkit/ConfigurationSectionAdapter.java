@@ -16,14 +16,26 @@
 package xyz.mkotb.configapi.internal.adapt.impl.bukkit;
 
 import org.bukkit.configuration.ConfigurationSection;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
 
+import java.util.Map;
+
 public class ConfigurationSectionAdapter implements ObjectAdapter<ConfigurationSection, ConfigurationSection> {
     @Override
     public ConfigurationSection read(String key, ConfigurationSection section) {
         return section.getConfigurationSection(key);
     }
 
+    @Override
+    public ConfigurationSection readValue(Object raw) {
+        if (raw instanceof ConfigurationSection || raw instanceof Map) {
+            return AdapterHandler.toSection(raw);
+        }
+
+        return null;
+    }
+
     @Override
     public ConfigurationSection write(ConfigurationSection obj) {
         return obj;
@@ -18,29 +18,110 @@ package xyz.mkotb.configapi.internal.adapt.impl.bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import xyz.mkotb.configapi.internal.FieldAccessor;
 import xyz.mkotb.configapi.internal.InternalsHelper;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ConfigurationSerializableHelper {
+    private static final FieldAccessor ALIASES = FieldAccessor.of(
+            InternalsHelper.staticFieldFor(ConfigurationSerialization.class, "aliases"));
+    private static final MethodType DESERIALIZER_TYPE = MethodType.methodType(Object.class, Map.class);
+    private static final ClassValue<List<Deserializer>> DESERIALIZERS = new ClassValue<List<Deserializer>>() {
+        @Override
+        protected List<Deserializer> computeValue(Class<?> type) {
+            return findDeserializers(type);
+        }
+    };
+    private static volatile RegistryIndex index = new RegistryIndex(null, -1, Collections.emptySet());
+
     private ConfigurationSerializableHelper() {
     }
 
+    private static Map<String, Class<? extends ConfigurationSerializable>> aliases() {
+        return ALIASES.get(null);
+    }
+
     public static Collection<Class<? extends ConfigurationSerializable>> registeredClasses() {
-        Map<String, Class<? extends ConfigurationSerializable>> aliases = InternalsHelper.getField(
-                InternalsHelper.staticFieldFor(ConfigurationSerialization.class, "aliases"), null
-        );
-        return aliases.values();
+        return aliases().values();
     }
 
+    /*
+     * Checked against an index of the registered classes which is only rebuilt
+     * when Bukkit's alias map is replaced or changes size
+     */
     public static boolean isRegistered(Class<?> cls) {
-        return registeredClasses().contains(cls);
+        Map<String, Class<? extends ConfigurationSerializable>> aliases = aliases();
+        RegistryIndex current = index;
+
+        if (current.aliases != aliases || current.size != aliases.size()) {
+            try {
+                index = current = new RegistryIndex(aliases, aliases.size(),
+                        Collections.unmodifiableSet(new HashSet<>(aliases.values())));
+            } catch (ConcurrentModificationException ex) { // registered to while loading off the main thread
+                return aliases.containsValue(cls);
+            }
+        }
+
+        return current.classes.contains(cls);
     }
 
+    /*
+     * Tries the class' static deserialize(Map) method, then valueOf(Map), then its Map constructor,
+     * moving on when one fails or returns null, as ConfigurationSerialization does. The handles
+     * are resolved once per class.
+     */
     public static <T> T deserialize(Map<String, Object> map, Class<T> cls) {
-        return cls.cast(ConfigurationSerialization.deserializeObject(map, cls.asSubclass(ConfigurationSerializable.class)));
+        List<Deserializer> deserializers = DESERIALIZERS.get(cls);
+
+        if (deserializers.isEmpty()) {
+            return cls.cast(ConfigurationSerialization.deserializeObject(map, cls.asSubclass(ConfigurationSerializable.class)));
+        }
+
+        for (Deserializer deserializer : deserializers) {
+            Object result = deserializer.invoke(map, cls);
+
+            if (result != null) {
+                return cls.cast(result);
+            }
+        }
+
+        return null;
+    }
+
+    private static List<Deserializer> findDeserializers(Class<?> cls) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        List<Deserializer> deserializers = new ArrayList<>(3);
+
+        for (String name : new String[] {"deserialize", "valueOf"}) {
+            try {
+                Method method = cls.getDeclaredMethod(name, Map.class);
+
+                if (Modifier.isStatic(method.getModifiers()) &&
+                        ConfigurationSerializable.class.isAssignableFrom(method.getReturnType())) {
+                    deserializers.add(new Deserializer("method '" + method + "'",
+                            lookup.unreflect(method).asType(DESERIALIZER_TYPE)));
+                }
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException ignored) {
+            }
+        }
+
+        try {
+            Constructor<?> constructor = cls.getConstructor(Map.class);
+            deserializers.add(new Deserializer("constructor '" + constructor + "'",
+                    lookup.unreflectConstructor(constructor).asType(DESERIALIZER_TYPE)));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException ignored) {
+        }
+
+        return Collections.unmodifiableList(deserializers);
     }
 
     public static Map<String, Object> toMap(ConfigurationSection section) {
@@ -50,4 +131,46 @@ public class ConfigurationSerializableHelper {
 
         return map;
     }
+
+    private static final class Deserializer {
+        private final String description;
+        private final MethodHandle handle;
+
+        private Deserializer(String description, MethodHandle handle) {
+            this.description = description;
+            this.handle = handle;
+        }
+
+        /*
+         * The deserialized object, or null after logging as ConfigurationSerialization does
+         */
+        private Object invoke(Map<String, Object> map, Class<?> cls) {
+            try {
+                Object result = handle.invokeExact((Map) map);
+
+                if (result == null) {
+                    Logger.getLogger(ConfigurationSerialization.class.getName()).log(Level.SEVERE,
+                            "Could not call " + description + " of " + cls + " for deserialization: method returned null");
+                }
+
+                return result;
+            } catch (Throwable ex) {
+                Logger.getLogger(ConfigurationSerialization.class.getName()).log(Level.SEVERE,
+                        "Could not call " + description + " of " + cls + " for deserialization", ex);
+                return null;
+            }
+        }
+    }
+
+    private static final class RegistryIndex {
+        private final Map<?, ?> aliases;
+        private final int size;
+        private final Set<Class<?>> classes;
+
+        private RegistryIndex(Map<?, ?> aliases, int size, Set<Class<?>> classes) {
+            this.aliases = aliases;
+            this.size = size;
+            this.classes = classes;
+        }
+    }
 }
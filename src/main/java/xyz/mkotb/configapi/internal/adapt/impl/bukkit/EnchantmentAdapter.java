@@ -18,11 +18,17 @@ package xyz.mkotb.configapi.internal.adapt.impl.bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.enchantments.Enchantment;
 import xyz.mkotb.configapi.internal.adapt.ObjectAdapter;
+import xyz.mkotb.configapi.internal.adapt.RawValues;
 
 public class EnchantmentAdapter implements ObjectAdapter<Enchantment, String> {
     @Override
     public Enchantment read(String key, ConfigurationSection section) {
-        return Enchantment.getByName(section.getString(key));
+        return readValue(section.get(key));
+    }
+
+    @Override
+    public Enchantment readValue(Object raw) {
+        return Enchantment.getByName(RawValues.toString(raw));
     }
 
     @Override
@@ -25,6 +25,11 @@ public class OfflinePlayerAdapter implements ObjectAdapter<OfflinePlayer, Offlin
         return section.getOfflinePlayer(key);
     }
 
+    @Override
+    public OfflinePlayer readValue(Object raw) {
+        return raw instanceof OfflinePlayer ? (OfflinePlayer) raw : null;
+    }
+
     @Override
     public OfflinePlayer write(OfflinePlayer obj) {
         return obj;
@@ -15,17 +15,89 @@
  */
 package xyz.mkotb.configapi.internal.naming;
 
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+/*
+ * Splits names into lower case words joined by dashes: myHTTPPort2 becomes
+ * my-http-port-2. Words start at runs of underscores (which are dropped), at
+ * an upper case letter after a lower case one or before the last of a run of
+ * capitals, and wherever letters and digits meet.
+ */
+public class CamelCaseNamingStrategy extends MemoizedNamingStrategy {
+    @Override
+    protected String convert(String input) {
+        StringBuilder output = new StringBuilder(input.length() + 4);
+        int length = input.length();
+        int start = 0;
+        int i = 1;
 
-public class CamelCaseNamingStrategy implements NamingStrategy {
-    private static final Pattern CAMEL_PATTERN = Pattern.compile("(?<=[^_\\r\\n])(?:(?>_+)|(?=[A-Z])(?:(?<![A-Z])|(?=[A-Z][a-z]))" +
-            "|(?>(?=\\d))(?<!\\d)|(?<=\\d)(?=[^\\d\\r\\n]))");
+        while (i < length) {
+            char previous = input.charAt(i - 1);
 
-    @Override
-    public String rename(String input) {
-        return String.join("-", Stream.of(CAMEL_PATTERN.split(input))
-                .map(String::toLowerCase).collect(Collectors.toList()));
+            if (previous == '_' || previous == '\r' || previous == '\n') {
+                i++;
+                continue;
+            }
+
+            if (input.charAt(i) == '_') {
+                int end = i;
+
+                while (end < length && input.charAt(end) == '_') {
+                    end++;
+                }
+
+                appendWord(output, input, start, i);
+                start = end;
+                i = end + 1;
+                continue;
+            }
+
+            if (isBoundary(input, i)) {
+                appendWord(output, input, start, i);
+                start = i;
+            }
+
+            i++;
+        }
+
+        if (start < length) { // trailing underscores leave no last word
+            appendWord(output, input, start, length);
+        }
+
+        return output.toString();
+    }
+
+    private static boolean isBoundary(String input, int i) {
+        char previous = input.charAt(i - 1);
+        char current = input.charAt(i);
+
+        if (isUpper(current) && (!isUpper(previous) ||
+                (i + 1 < input.length() && isLower(input.charAt(i + 1))))) {
+            return true;
+        }
+
+        if (isDigit(current)) {
+            return !isDigit(previous);
+        }
+
+        return isDigit(previous) && current != '\r' && current != '\n';
+    }
+
+    private static void appendWord(StringBuilder output, String input, int start, int end) {
+        if (output.length() != 0) {
+            output.append('-');
+        }
+
+        output.append(input.substring(start, end).toLowerCase());
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 }
@@ -20,4 +20,9 @@ public class DummyNamingStrategy implements NamingStrategy {
     public String rename(String input) {
         return input;
     }
+
+    @Override
+    public String reverse(String key) {
+        return key;
+    }
 }
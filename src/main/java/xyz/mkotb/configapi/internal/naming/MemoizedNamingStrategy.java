@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.naming;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Remembers what each name renamed to, and the reverse, so each field name is
+ * only converted once. Bounded as a precaution; config classes only ever have
+ * so many field names.
+ */
+public abstract class MemoizedNamingStrategy implements NamingStrategy {
+    private static final int MAX_ENTRIES = 4096;
+    private final Map<String, String> renamed = new ConcurrentHashMap<>();
+    private final Map<String, String> reversed = new ConcurrentHashMap<>();
+
+    @Override
+    public String rename(String input) {
+        String output = renamed.get(input);
+
+        if (output == null) {
+            output = convert(input);
+
+            if (renamed.size() < MAX_ENTRIES) {
+                renamed.put(input, output);
+                reversed.putIfAbsent(output, input);
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public String reverse(String key) {
+        return reversed.get(key);
+    }
+
+    protected abstract String convert(String input);
+}
@@ -21,18 +21,21 @@ import java.util.concurrent.ConcurrentHashMap;
 public final class NamingStrategies {
     private static Map<String, NamingStrategy> strategies = new ConcurrentHashMap<>();
 
-    private NamingStrategies() {
+    static {
         insert("underscore", new UnderscoreNamingStrategy());
         insert("camelcase", new CamelCaseNamingStrategy());
         insert("dummy", new DummyNamingStrategy());
         insert("null", from("dummy"));
     }
 
+    private NamingStrategies() {
+    }
+
     public static NamingStrategy from(String name) {
         return strategies.get(name.toLowerCase());
     }
 
     public static void insert(String name, NamingStrategy strategy) {
-        strategies.replace(name.toLowerCase(), strategy); // guaranteed atomicy
+        strategies.put(name.toLowerCase(), strategy);
     }
 }
@@ -17,4 +17,12 @@ package xyz.mkotb.configapi.internal.naming;
 
 public interface NamingStrategy {
     String rename(String input);
+
+    /*
+     * The name which renames to key, or null if it isn't known. Strategies
+     * which can't be inverted only know the names they have already renamed.
+     */
+    default String reverse(String key) {
+        return null;
+    }
 }
@@ -15,9 +15,9 @@
  */
 package xyz.mkotb.configapi.internal.naming;
 
-public class UnderscoreNamingStrategy implements NamingStrategy {
+public class UnderscoreNamingStrategy extends MemoizedNamingStrategy {
     @Override
-    public String rename(String input) {
-        return input.replaceAll("_", "-").toLowerCase();
+    protected String convert(String input) {
+        return input.replace('_', '-').toLowerCase();
     }
-}
\ No newline at end of file
+}
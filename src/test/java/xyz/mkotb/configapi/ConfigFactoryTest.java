@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigFactoryTest {
+    private Path folder;
+    private TestPlugin plugin;
+    private ConfigFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        folder = TestPlugin.newDataFolder();
+        plugin = TestPlugin.create(folder);
+        factory = ConfigFactory.newFactory(plugin);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        factory.stopWatching();
+        TestPlugin.delete(folder);
+    }
+
+    @Test
+    public void unknownKeysNameTheFieldTheyBelongTo() throws Exception {
+        write("settings", "name: a\ndatabase:\n  host: h\n  max-players: 3\n");
+        factory.logUnknownKeys();
+
+        Settings settings = factory.fromFile("settings", Settings.class);
+
+        assertEquals("h", settings.database.host);
+        assertEquals(1, plugin.messages().size());
+        assertTrue(plugin.messages().get(0), plugin.messages().get(0).contains("database.max-players"));
+        assertTrue(plugin.messages().get(0), plugin.messages().get(0).contains("named maxPlayers"));
+    }
+
+    @Test
+    public void savesSupersedePendingAsyncSaves() throws Exception {
+        Database database = new Database();
+        File file = folder.resolve("database.yml").toFile();
+
+        database.host = "original";
+        factory.setSaveWindow(60_000);
+        factory.save(file, database);
+
+        database.host = "changed";
+        CompletableFuture<Void> pending = factory.saveAsync(file, database);
+        database.host = "original";
+        factory.save(file, database); // the same as the last save, but the queued write isn't
+
+        assertTrue(pending.isDone());
+        assertTrue(factory.flush(5, TimeUnit.SECONDS));
+        assertEquals("host: original\n", read(file));
+    }
+
+    @Test
+    public void asyncSavesLandInOrder() throws Exception {
+        Database database = new Database();
+        File file = folder.resolve("database.yml").toFile();
+
+        factory.setSaveWindow(0);
+
+        for (int i = 0; i < 20; i++) {
+            database.host = "host" + i;
+            factory.saveAsync(file, database);
+        }
+
+        assertTrue(factory.flush(5, TimeUnit.SECONDS));
+        assertEquals("host: host19\n", read(file));
+    }
+
+    @Test
+    public void savesAfterOtherWritesRenderAgain() throws Exception {
+        Database database = new Database();
+        File file = folder.resolve("database.yml").toFile();
+
+        database.host = "a";
+        factory.save(file, database);
+        factory.writeStream(file, "hosts", Arrays.asList("b", "c").iterator(), String.class);
+        factory.save(file, database);
+        assertEquals("host: a\n", read(file));
+
+        factory.saveAll(Collections.singletonMap("database", new Database()));
+        factory.save(file, database);
+        assertEquals("host: a\n", read(file));
+    }
+
+    @Test
+    public void emptyStreamsAreWrittenAsEmptyCollectionFields() throws Exception {
+        File saved = folder.resolve("saved.yml").toFile();
+        File databases = folder.resolve("databases.yml").toFile();
+        File names = folder.resolve("names.yml").toFile();
+
+        factory.save(saved, new Lists());
+        factory.writeStream(databases, "databases", Collections.<Database>emptyIterator(), Database.class);
+        factory.writeStream(names, "names", Collections.<String>emptyIterator(), String.class);
+
+        assertEquals(read(saved), read(databases) + read(names));
+        assertEquals(0, factory.stream(databases, "databases", Database.class).count());
+    }
+
+    private String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private File write(String name, String contents) throws Exception {
+        Path file = folder.resolve(name + ".yml");
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    public static class Settings {
+        private String name;
+        private Database database;
+        private int maxPlayers;
+    }
+
+    public static class Lists {
+        private List<Database> databases = new ArrayList<>();
+        private List<String> names = new ArrayList<>();
+    }
+
+    public static class Database {
+        private String host;
+    }
+}
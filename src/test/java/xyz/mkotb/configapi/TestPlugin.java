@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/*
+ * A plugin outside of a server for tests, through JavaPlugin's initialising
+ * constructor. Its server only provides a logger, which keeps what is logged,
+ * and a scheduler which runs tasks straight away.
+ */
+public final class TestPlugin extends JavaPlugin {
+    private final List<String> messages;
+
+    private TestPlugin(File dataFolder, Logger logger, List<String> messages) {
+        super(new JavaPluginLoader(server(logger)), new PluginDescriptionFile("ConfigAPITest", "1.0",
+                TestPlugin.class.getName()), dataFolder, new File(dataFolder, "ConfigAPITest.jar"));
+        this.messages = messages;
+    }
+
+    public static TestPlugin create(Path dataFolder) {
+        Logger logger = Logger.getAnonymousLogger();
+        List<String> messages = new CopyOnWriteArrayList<>();
+
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        return new TestPlugin(dataFolder.toFile(), logger, messages);
+    }
+
+    /*
+     * Everything logged through the plugin's logger so far
+     */
+    public List<String> messages() {
+        return messages;
+    }
+
+    public static Path newDataFolder() throws IOException {
+        return Files.createTempDirectory("configapi");
+    }
+
+    public static void delete(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static Server server(Logger logger) {
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, (method, args) -> {
+            if (method.equals("runTask")) {
+                ((Runnable) args[1]).run();
+            }
+
+            return null;
+        });
+
+        return proxy(Server.class, (method, args) -> {
+            switch (method) {
+                case "getLogger":
+                    return logger;
+                case "getScheduler":
+                    return scheduler;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Invocation handler) {
+        return type.cast(Proxy.newProxyInstance(TestPlugin.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> method.getDeclaringClass() == Object.class
+                        ? method.invoke(handler, args) : handler.handle(method.getName(), args)));
+    }
+
+    private interface Invocation {
+        Object handle(String method, Object[] args);
+    }
+}
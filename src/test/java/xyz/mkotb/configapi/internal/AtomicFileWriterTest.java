@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AtomicFileWriterTest {
+    private static final byte[] CONTENTS = "name: a\n".getBytes(StandardCharsets.UTF_8);
+    private Path first;
+    private Path second;
+
+    @Before
+    public void setUp() throws Exception {
+        first = Files.createTempFile("first", ".yml");
+        second = Files.createTempFile("second", ".yml");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(first);
+        Files.deleteIfExists(second);
+    }
+
+    @Test
+    public void unchangedWritesAreSkipped() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(2);
+
+        assertTrue(writer.write(first, CONTENTS, false));
+        assertFalse(writer.write(first, CONTENTS, false));
+        assertTrue(writer.isCurrent(first));
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreForgotten() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(1);
+
+        writer.write(first, CONTENTS, false);
+        writer.write(second, CONTENTS, false);
+
+        assertFalse(writer.isCurrent(first));
+        assertTrue(writer.isCurrent(second));
+        assertTrue(writer.write(first, CONTENTS, false));
+    }
+
+    @Test
+    public void filesChangedSinceAreWrittenAgain() throws Exception {
+        AtomicFileWriter writer = new AtomicFileWriter(2);
+
+        writer.write(first, CONTENTS, false);
+        Files.write(first, "other: 1\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(writer.isCurrent(first));
+        assertTrue(writer.write(first, CONTENTS, false));
+        assertTrue(writer.isCurrent(first));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinarySidecarTest {
+    private static final String YAML = "name: alpha\ncount: 3\nratio: 0.5\nenabled: true\n" +
+            "values:\n- x\n- y\nnested:\n  inner: 7\n  deeper:\n    flag: false\n";
+    private final BinarySidecar sidecars = new BinarySidecar(new AtomicFileWriter(16), Logger.getAnonymousLogger());
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("sidecar", ".yml");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(BinarySidecar.sidecarOf(file));
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void treesAreReadBackFromTheSidecar() throws Exception {
+        write(YAML);
+        YamlConfiguration parsed = load();
+        Path sidecar = BinarySidecar.sidecarOf(file);
+
+        assertTrue(Files.exists(sidecar));
+        assertEquals(parsed.saveToString(), load().saveToString());
+
+        // only a tree decoded from the sidecar can see this
+        Files.write(sidecar, replace(Files.readAllBytes(sidecar), "alpha", "omega"));
+        assertEquals("omega", load().getString("name"));
+    }
+
+    @Test
+    public void editedFilesAreParsedAgain() throws Exception {
+        write(YAML);
+        load();
+        write(YAML.replace("alpha", "beta"));
+
+        assertEquals("beta", load().getString("name"));
+    }
+
+    @Test
+    public void corruptLengthsFallBackToTheYaml() throws Exception {
+        write(YAML);
+        load();
+        Path sidecar = BinarySidecar.sidecarOf(file);
+        byte[] contents = Files.readAllBytes(sidecar);
+
+        // the top-level entry count, right after the magic, version and stamp
+        ByteBuffer.wrap(contents).putInt(4 + 1 + 32, Integer.MAX_VALUE);
+        Files.write(sidecar, contents);
+
+        YamlConfiguration tree = load();
+        assertEquals("alpha", tree.getString("name"));
+        assertEquals(7, tree.getInt("nested.inner"));
+    }
+
+    @Test
+    public void serializedObjectsGetNoSidecar() throws Exception {
+        write("item:\n  ==: Unregistered\n  amount: 2\n");
+
+        assertEquals(2, load().getInt("item.amount"));
+        assertFalse(Files.exists(BinarySidecar.sidecarOf(file)));
+    }
+
+    private YamlConfiguration load() {
+        return sidecars.load(file.toFile(), YamlConfiguration::loadConfiguration);
+    }
+
+    private void write(String contents) throws Exception {
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] replace(byte[] contents, String from, String to) {
+        byte[] target = from.getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i + target.length <= contents.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(contents, i, i + target.length), target)) {
+                System.arraycopy(to.getBytes(StandardCharsets.UTF_8), 0, contents, i, target.length);
+                return contents;
+            }
+        }
+
+        throw new AssertionError(from + " not found");
+    }
+}
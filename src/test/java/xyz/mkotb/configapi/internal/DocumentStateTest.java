@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import xyz.mkotb.configapi.internal.adapt.AdapterHandler;
+import xyz.mkotb.configapi.internal.adapt.ClassBindingPlan;
+import xyz.mkotb.configapi.internal.naming.DummyNamingStrategy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DocumentStateTest {
+    private final AdapterHandler handler = AdapterHandler.create(new DummyNamingStrategy());
+    private final ClassBindingPlan plan = handler.planFor(Document.class);
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("document", ".yml");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void unchangedObjectsAreSkipped() throws Exception {
+        DocumentState state = new DocumentState();
+        Document document = new Document();
+
+        save(state, document);
+        assertNull(state.render(document, handler, plan, file));
+    }
+
+    @Test
+    public void changedFieldsAreRenderedAgain() throws Exception {
+        DocumentState state = new DocumentState();
+        Document document = new Document();
+
+        save(state, document);
+        document.count = 2;
+        assertEquals("name: a\ncount: 2\nvalues:\n- x\n", save(state, document));
+
+        document.values.add("y"); // changed in place
+        assertEquals("name: a\ncount: 2\nvalues:\n- x\n- y\n", save(state, document));
+    }
+
+    @Test
+    public void filesChangedSinceAreRenderedAgain() throws Exception {
+        DocumentState state = new DocumentState();
+        Document document = new Document();
+        String expected = save(state, document);
+
+        Files.write(file, "other: 1\n".getBytes(StandardCharsets.UTF_8));
+        byte[] contents = state.render(document, handler, plan, file);
+
+        assertNotNull(contents);
+        assertEquals(expected, new String(contents, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void otherObjectsAreRenderedInFull() throws Exception {
+        DocumentState state = new DocumentState();
+        Document other = new Document();
+
+        save(state, new Document());
+        other.name = "b";
+        assertEquals("name: b\ncount: 1\nvalues:\n- x\n", save(state, other));
+    }
+
+    private String save(DocumentState state, Document document) throws Exception {
+        byte[] contents = state.render(document, handler, plan, file);
+
+        assertNotNull(contents);
+        Files.write(file, contents);
+        state.written(file);
+        return new String(contents, StandardCharsets.UTF_8);
+    }
+
+    public static class Document {
+        private String name = "a";
+        private int count = 1;
+        private List<String> values = new ArrayList<>(Arrays.asList("x"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.MemorySection;
+import org.junit.Test;
+import xyz.mkotb.configapi.Lazy;
+import xyz.mkotb.configapi.RequiredField;
+import xyz.mkotb.configapi.internal.naming.NamingStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdapterHandlerTest {
+    // files "limit" under a "group" section
+    private static final NamingStrategy GROUPED = (name) -> name.equals("limit") ? "group.limit" : name;
+
+    @Test
+    public void pathNamesBindFromNestedSections() {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("group.limit", 5);
+        config.set("name", "a");
+
+        for (boolean compiled : new boolean[] {false, true}) {
+            List<String> unknown = new ArrayList<>();
+            Grouped read = handler(compiled, unknown).adaptIn(config, null, Grouped.class);
+
+            assertEquals(5, read.limit);
+            assertEquals("a", read.name);
+            assertTrue(unknown.isEmpty());
+        }
+    }
+
+    @Test
+    public void pathNamesBindFromParsedMappings() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("group", Collections.singletonMap("limit", 6));
+        Map<String, Object> flat = Collections.singletonMap("group.limit", 7);
+
+        for (boolean compiled : new boolean[] {false, true}) {
+            assertEquals(6, handler(compiled, null).adaptValueIn(nested, Grouped.class).limit);
+            assertEquals(7, handler(compiled, null).adaptValueIn(flat, Grouped.class).limit);
+        }
+    }
+
+    @Test
+    public void pathNamesRoundTrip() {
+        Grouped grouped = new Grouped();
+        grouped.limit = 9;
+
+        for (boolean compiled : new boolean[] {false, true}) {
+            AdapterHandler handler = handler(compiled, null);
+            MemorySection section = handler.adaptOut(grouped, MemorySection.class);
+            MemoryConfiguration config = new MemoryConfiguration();
+
+            section.getValues(false).forEach(config::set);
+            assertEquals(9, handler.adaptIn(config, null, Grouped.class).limit);
+        }
+    }
+
+    @Test
+    public void nestedTypeArgumentsAreBound() {
+        Nested nested = new Nested();
+        nested.grid.add(Collections.singletonList(new Point(1)));
+        nested.lazyGrid.add(Collections.singletonList(new Point(2)));
+        nested.groups.put("a", Collections.singleton(new Point(3)));
+        nested.lazyGroups.put("b", Collections.singleton(new Point(4)));
+
+        for (boolean compiled : new boolean[] {false, true}) {
+            AdapterHandler handler = handler(compiled, null);
+            MemorySection section = handler.adaptOut(nested, MemorySection.class);
+            MemoryConfiguration config = new MemoryConfiguration();
+
+            section.getValues(false).forEach(config::set);
+            Nested read = handler.adaptIn(config, null, Nested.class);
+
+            assertEquals(1, read.grid.get(0).get(0).x);
+            assertEquals(2, read.lazyGrid.get(0).get(0).x);
+            assertEquals(3, read.groups.get("a").iterator().next().x);
+            assertEquals(4, read.lazyGroups.get("b").iterator().next().x);
+        }
+    }
+
+    private static AdapterHandler handler(boolean compiled, List<String> unknown) {
+        return AdapterHandler.create(GROUPED, compiled, unknown == null ? null : (type, path) -> unknown.add(path));
+    }
+
+    public static class Grouped {
+        @RequiredField
+        private int limit;
+        private String name;
+    }
+
+    public static class Nested {
+        private List<List<Point>> grid = new ArrayList<>();
+        @Lazy
+        private List<List<Point>> lazyGrid = new ArrayList<>();
+        private Map<String, Set<Point>> groups = new LinkedHashMap<>();
+        @Lazy
+        private Map<String, Set<Point>> lazyGroups = new LinkedHashMap<>();
+    }
+
+    public static class Point {
+        private int x;
+
+        public Point() {
+        }
+
+        Point(int x) {
+            this.x = x;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.junit.Test;
+import xyz.mkotb.configapi.internal.naming.NamingStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ClassBindingPlanTest {
+    @Test
+    public void plansAreKeptPerStrategyInstance() {
+        NamingStrategy first = new PrefixStrategy("first-");
+        NamingStrategy second = new PrefixStrategy("second-");
+
+        assertEquals("first-value", ClassBindingPlan.of(Sample.class, first).slots().get(0).name());
+        assertEquals("second-value", ClassBindingPlan.of(Sample.class, second).slots().get(0).name());
+    }
+
+    @Test
+    public void plansAreReusedForOneStrategy() {
+        NamingStrategy strategy = new PrefixStrategy("same-");
+        assertSame(ClassBindingPlan.of(Sample.class, strategy), ClassBindingPlan.of(Sample.class, strategy));
+    }
+
+    public static class Sample {
+        private int value = 3;
+    }
+
+    private static final class PrefixStrategy implements NamingStrategy {
+        private final String prefix;
+
+        private PrefixStrategy(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String rename(String input) {
+            return prefix + input;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, Mazen Kotb, mazenkotb@gmail.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ * ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ * OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package xyz.mkotb.configapi.internal.adapt;
+
+import org.bukkit.configuration.MemorySection;
+import org.junit.Test;
+import xyz.mkotb.configapi.RequiredField;
+import xyz.mkotb.configapi.ex.InvalidConfigurationException;
+import xyz.mkotb.configapi.internal.naming.DummyNamingStrategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClassCodecTest {
+    private final AdapterHandler compiled = AdapterHandler.create(new DummyNamingStrategy(), true);
+    private final AdapterHandler reflective = AdapterHandler.create(new DummyNamingStrategy(), false);
+
+    @Test
+    public void primitiveFieldsRoundTrip() {
+        Primitives primitives = new Primitives();
+        primitives.count = 7;
+        primitives.total = 1L << 40;
+        primitives.ratio = 2.5D;
+        primitives.enabled = true;
+
+        MemorySection section = compiled.adaptOut(primitives, MemorySection.class);
+        Primitives read = compiled.adaptIn(section, null, Primitives.class);
+
+        assertEquals(7, read.count);
+        assertEquals(1L << 40, read.total);
+        assertEquals(2.5D, read.ratio, 0D);
+        assertTrue(read.enabled);
+        assertEquals(reflective.adaptOut(primitives, MemorySection.class).getValues(true), section.getValues(true));
+    }
+
+    @Test
+    public void primitiveFieldsBindFromParsedValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", 3);
+        values.put("total", 5L);
+        values.put("ratio", 0.5D);
+        values.put("enabled", true);
+
+        Primitives read = compiled.adaptValueIn(values, Primitives.class);
+
+        assertEquals(3, read.count);
+        assertEquals(5L, read.total);
+        assertEquals(0.5D, read.ratio, 0D);
+        assertTrue(read.enabled);
+    }
+
+    @Test
+    public void bothModesReportTheSameUnknownKeys() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("name", "a");
+        values.put("extra", 1);
+
+        assertEquals(unknownKeys(false, values), unknownKeys(true, values));
+        assertEquals("[Named extra]", unknownKeys(true, values).toString());
+    }
+
+    @Test
+    public void bothModesRequireTheSameFields() {
+        assertEquals(missingField(reflective), missingField(compiled));
+    }
+
+    private static List<String> unknownKeys(boolean compiledCodecs, Map<String, Object> values) {
+        List<String> reports = new ArrayList<>();
+        AdapterHandler handler = AdapterHandler.create(new DummyNamingStrategy(), compiledCodecs,
+                (type, path) -> reports.add(type.getSimpleName() + " " + path));
+
+        assertEquals("a", handler.adaptValueIn(values, Named.class).name);
+        return reports;
+    }
+
+    private static String missingField(AdapterHandler handler) {
+        try {
+            handler.adaptValueIn(new LinkedHashMap<>(), Named.class);
+        } catch (InvalidConfigurationException ex) {
+            return ex.getMessage();
+        }
+
+        fail("read without its required field");
+        return null;
+    }
+
+    public static class Named {
+        @RequiredField
+        private String name;
+    }
+
+    public static class Primitives {
+        private int count;
+        private long total;
+        private double ratio;
+        private boolean enabled;
+    }
+}